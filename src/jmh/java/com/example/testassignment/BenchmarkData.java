@@ -0,0 +1,76 @@
+package com.example.testassignment;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.ConcurrentUserRepository;
+import com.example.testassignment.repositories.InMemoryUserRepository;
+import com.example.testassignment.repositories.ShardedUserRepository;
+import com.example.testassignment.repositories.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic users and payloads shared by the benchmarks.
+ */
+public final class BenchmarkData {
+    private static final String[] COUNTRIES = {"UA", "PL", "DE", "US", "GB", "FR", "ES", "IT"};
+    private static final String[] CITIES = {"Kyiv", "Lviv", "Warsaw", "Berlin", "Boston", "London", "Paris", "Madrid"};
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1940, 1, 1);
+    private static final int BIRTHDAY_SPAN_DAYS = 365 * 65;
+
+    private BenchmarkData() {
+    }
+
+    public static UserRepository repository(String type) {
+        return switch (type) {
+            case "in-memory" -> new InMemoryUserRepository();
+            case "concurrent" -> new ConcurrentUserRepository();
+            case "sharded" -> new ShardedUserRepository(0);
+            default -> throw new IllegalArgumentException("Unknown repository type " + type);
+        };
+    }
+
+    public static List<User> users(int count) {
+        var random = new Random(42);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(random, i));
+        }
+        return users;
+    }
+
+    public static User user(Random random, int i) {
+        var user = new User(0, "First" + i, "Last" + (i % 5000), "user" + i + "@example.com");
+        user.setBirthday(toEpochDay(birthday(random)));
+        user.setAddress(new Address(COUNTRIES[i % COUNTRIES.length], CITIES[random.nextInt(CITIES.length)],
+                "Street " + i, 1 + random.nextInt(200), 10000 + random.nextInt(90000)));
+        user.setPhoneNumber("+380" + (100000000 + random.nextInt(900000000)));
+        return user;
+    }
+
+    public static List<UserPayload> payloads(int count) {
+        var random = new Random(42);
+        List<UserPayload> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var payload = new UserPayload("First" + i, "Last" + i, "user" + i + "@example.com",
+                    birthday(random).toString());
+            payload.setAddress(new Address(COUNTRIES[i % COUNTRIES.length], CITIES[random.nextInt(CITIES.length)],
+                    "Street " + i, 1 + random.nextInt(200), 10000 + random.nextInt(90000)));
+            payload.setPhoneNumber("+380 67 123 4567");
+            payloads.add(payload);
+        }
+        return payloads;
+    }
+
+    public static int toEpochDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    private static LocalDate birthday(Random random) {
+        return FIRST_BIRTHDAY.plusDays(random.nextInt(BIRTHDAY_SPAN_DAYS));
+    }
+}
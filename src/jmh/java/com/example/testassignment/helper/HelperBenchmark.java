@@ -0,0 +1,85 @@
+package com.example.testassignment.helper;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelperBenchmark {
+    private User user;
+    private UpdateUserPayload updates;
+    private JsonNode mergePatch;
+    private JsonNode jsonPatch;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        user = new User(1, "First", "Last", "user@example.com");
+        user.setAddress(new Address("UA", "Kyiv", "Street", 1, 10000));
+        updates = new UpdateUserPayload();
+        updates.setLastName("Other");
+        updates.setPhoneNumber("+1234567890");
+        var objectMapper = new ObjectMapper();
+        mergePatch = objectMapper.readTree("""
+                {"lastName":"Other","phoneNumber":"+1234567890","address":{"city":"Lviv"}}""");
+        jsonPatch = objectMapper.readTree("""
+                [{"op":"test","path":"/lastName","value":"Last"},
+                 {"op":"replace","path":"/lastName","value":"Other"},
+                 {"op":"replace","path":"/address/city","value":"Lviv"}]""");
+    }
+
+    @Benchmark
+    public int parseDate() {
+        return EpochDays.parse("1985-06-15");
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return EpochDays.format(5644);
+    }
+
+    @Benchmark
+    public int age() {
+        return EpochDays.yearsBetween(5644, EpochDays.today());
+    }
+
+    @Benchmark
+    public User patchUser() {
+        var patched = user.toBuilder().build();
+        UserPatcher.apply(patched, updates);
+        return patched;
+    }
+
+    @Benchmark
+    public User mergePatchUser() {
+        var patched = user.toBuilder().address(UserMapper.copy(user.getAddress())).build();
+        UserPatcher.mergePatch(patched, mergePatch);
+        return patched;
+    }
+
+    @Benchmark
+    public User jsonPatchUser() {
+        var patched = user.toBuilder().address(UserMapper.copy(user.getAddress())).build();
+        UserPatcher.jsonPatch(patched, jsonPatch);
+        return patched;
+    }
+}
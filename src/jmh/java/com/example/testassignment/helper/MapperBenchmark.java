@@ -0,0 +1,94 @@
+package com.example.testassignment.helper;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UpdateAddressPayload;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+import org.modelmapper.Converter;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserMapper} against the ModelMapper setup it replaced. The warm benchmarks
+ * measure steady-state mapping; the cold ones run once per fresh JVM and include
+ * whatever the first mapping costs (class loading, ModelMapper's type map
+ * introspection).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private static final Converter<String, Integer> TO_EPOCH_DAY = context -> EpochDays.parse(context.getSource());
+
+    private UserPayload payload;
+    private UpdateUserPayload updates;
+    private ModelMapper modelMapper;
+
+    @Setup
+    public void setUp() {
+        payload = BenchmarkData.payloads(1).get(0);
+        updates = new UpdateUserPayload();
+        updates.setLastName("Other");
+        updates.setAddress(new UpdateAddressPayload(null, "Lviv", null, 12, null));
+        modelMapper = createModelMapper();
+    }
+
+    @Benchmark
+    public User userMapper() {
+        return UserMapper.toUser(payload);
+    }
+
+    @Benchmark
+    public User userMapperUpdate() {
+        return UserMapper.toUser(updates);
+    }
+
+    @Benchmark
+    public User modelMapper() {
+        return modelMapper.map(payload, User.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public User userMapperCold() {
+        return UserMapper.toUser(payload);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public User modelMapperCold() {
+        return createModelMapper().map(payload, User.class);
+    }
+
+    private static ModelMapper createModelMapper() {
+        var mapper = new ModelMapper();
+        mapper.emptyTypeMap(UserPayload.class, User.class)
+                .addMappings(mapping -> mapping.using(TO_EPOCH_DAY)
+                        .map(UserPayload::getBirthday, User::setBirthday))
+                .implicitMappings();
+        return mapper;
+    }
+}
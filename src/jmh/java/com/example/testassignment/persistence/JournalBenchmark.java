@@ -0,0 +1,75 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log append throughput under each fsync policy. Runs with several threads so the
+ * group commit of {@link FsyncPolicy#ALWAYS} has writers to batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"ALWAYS", "INTERVAL", "OS"})
+    FsyncPolicy fsyncPolicy;
+
+    private Path directory;
+    private WriteAheadLog log;
+    private ScheduledExecutorService syncer;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("user-journal");
+        log = new WriteAheadLog(directory, fsyncPolicy, 0);
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor();
+            syncer.scheduleWithFixedDelay(log::sync, 20, 20, TimeUnit.MILLISECONDS);
+        }
+        user = BenchmarkData.user(new Random(42), 1);
+        user.setId(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        log.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void append() {
+        log.append(WriteAheadLog.UPDATE, user);
+    }
+}
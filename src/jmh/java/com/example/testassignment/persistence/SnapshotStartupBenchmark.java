@@ -0,0 +1,96 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.repositories.ConcurrentUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until the first user can be served from a snapshot of {@code users} users,
+ * and time until the repository holds all of them. Run with {@code -prof gc} for
+ * the allocation side; the 10M case needs a heap of several GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotStartupBenchmark {
+
+    @Param({"1000000", "10000000"})
+    int users;
+
+    private Path directory;
+    private Path snapshot;
+    private ConcurrentUserRepository repository;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        directory = Files.createTempDirectory("user-snapshot");
+        snapshot = directory.resolve("users.snapshot");
+        var random = new Random(42);
+        MappedSnapshot.write(snapshot, 0, new Iterator<>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= users;
+            }
+
+            @Override
+            public User next() {
+                var user = BenchmarkData.user(random, next);
+                user.setId(next++);
+                return user;
+            }
+        });
+    }
+
+    @TearDown(Level.Invocation)
+    public void awaitLoading() {
+        // keeps the background copy of one invocation out of the next measurement
+        repository.getAll();
+        repository = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Optional<User> firstLookup() throws IOException {
+        repository = new ConcurrentUserRepository();
+        repository.load(MappedSnapshot.open(snapshot).orElseThrow());
+        return repository.find(users / 2);
+    }
+
+    @Benchmark
+    public int fullyLoaded() throws IOException {
+        repository = new ConcurrentUserRepository();
+        repository.load(MappedSnapshot.open(snapshot).orElseThrow());
+        return repository.getAll().size();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the repositories scale with the number of writing threads: every invocation
+ * spreads {@link #OPERATIONS} updates (with one range page read per ten updates)
+ * over {@code threads} threads, so a flat time means linear scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryScalingBenchmark {
+    private static final int OPERATIONS = 32_768;
+    private static final int SIZE = 100_000;
+
+    @Param({"in-memory", "concurrent", "sharded"})
+    String type;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int threads;
+
+    private UserRepository repository;
+    private List<User> users;
+    private ExecutorService executor;
+    private List<Callable<Void>> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkData.repository(type);
+        users = BenchmarkData.users(SIZE);
+        repository.createAll(users);
+        executor = Executors.newFixedThreadPool(threads);
+        var from = BenchmarkData.toEpochDay(LocalDate.of(1980, 1, 1));
+        var to = BenchmarkData.toEpochDay(LocalDate.of(1981, 1, 1));
+        tasks = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int operation = 0; operation < OPERATIONS / threads; operation++) {
+                    var user = repository.find(1 + random.nextInt(SIZE)).orElseThrow();
+                    repository.update(user.toBuilder().phoneNumber("+1234567890").build());
+                    if (operation % 10 == 0) {
+                        repository.findByBirthdayRange(from, to).limit(20).toList();
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void mixed() throws Exception {
+        for (var result : executor.invokeAll(tasks)) {
+            result.get();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    @Param({"in-memory", "concurrent", "sharded"})
+    String type;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private UserRepository repository;
+    private List<User> users;
+    private int from;
+    private int to;
+    private int wideTo;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        repository = BenchmarkData.repository(type);
+        users = BenchmarkData.users(size);
+        repository.createAll(users);
+        from = BenchmarkData.toEpochDay(LocalDate.of(1980, 1, 1));
+        to = BenchmarkData.toEpochDay(LocalDate.of(1981, 1, 1));
+        wideTo = BenchmarkData.toEpochDay(LocalDate.of(1990, 1, 1));
+    }
+
+    @Benchmark
+    public Optional<User> find() {
+        return repository.find(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public void update() {
+        var user = users.get(ThreadLocalRandom.current().nextInt(size));
+        repository.update(user.toBuilder().phoneNumber("+1234567890").build());
+    }
+
+    @Benchmark
+    public void createAndDelete() {
+        var user = new User(0, "First", "Last", "user@example.com");
+        repository.create(user);
+        repository.delete(user);
+    }
+
+    @Benchmark
+    public List<User> birthdayRangePage() {
+        return repository.findByBirthdayRange(from, to)
+                .limit(20)
+                .toList();
+    }
+
+    @Benchmark
+    public List<User> birthdayRangeAll() {
+        return repository.findByBirthdayRange(from, wideTo).toList();
+    }
+
+    @Benchmark
+    public List<User> pageAfterId() {
+        return repository.findAfter(size / 2)
+                .limit(20)
+                .toList();
+    }
+
+    /**
+     * "last12" covers the last names last12, last120..last129 and so on.
+     */
+    @Benchmark
+    public List<User> searchPrefixPage() {
+        return repository.search("last12", false, 0)
+                .limit(20)
+                .toList();
+    }
+
+    /**
+     * One swapped letter away from last1234.
+     */
+    @Benchmark
+    public List<User> searchFuzzyPage() {
+        return repository.search("lsat1234", true, 0)
+                .limit(20)
+                .toList();
+    }
+}
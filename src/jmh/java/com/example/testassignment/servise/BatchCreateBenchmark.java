@@ -0,0 +1,63 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.payload.UserPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating {@code records} users one call at a time versus one batch call; both
+ * include payload mapping and start from an empty repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchCreateBenchmark {
+
+    @Param({"in-memory", "concurrent"})
+    String type;
+
+    @Param({"10000", "100000"})
+    int records;
+
+    private List<UserPayload> payloads;
+    private UserServiceImpl userService;
+
+    @Setup(Level.Trial)
+    public void createPayloads() {
+        payloads = BenchmarkData.payloads(records);
+    }
+
+    @Setup(Level.Invocation)
+    public void createService() {
+        userService = new UserServiceImpl(BenchmarkData.repository(type));
+    }
+
+    @Benchmark
+    public void perRecord() {
+        for (UserPayload payload : payloads) {
+            userService.createUser(payload);
+        }
+    }
+
+    @Benchmark
+    public void batch() {
+        userService.createUsers(payloads);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.BenchmarkData;
+import com.example.testassignment.datafilters.BirthdayRangeFiltering;
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserFilter;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"in-memory", "concurrent"})
+    String type;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private UserServiceImpl userService;
+    private UserListFiltering unfiltered;
+    private UserListFiltering firstPage;
+    private UserListFiltering deepPage;
+    private UserListFiltering range;
+    private UserListFiltering rangePage;
+    private UserListFiltering cursorPage;
+    private UserListFiltering filteredRangePage;
+    private UserListFiltering sortedPage;
+    private UserListFiltering unindexedSortedPage;
+    private UserPayload payload;
+    private int created;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        UserRepository repository = BenchmarkData.repository(type);
+        repository.createAll(BenchmarkData.users(size));
+        userService = new UserServiceImpl(repository);
+        var birthdays = new BirthdayRangeFiltering("1980-01-01", "1985-01-01");
+        unfiltered = new UserListFiltering();
+        firstPage = new UserListFiltering(null, new PaginationParams(0, 20));
+        deepPage = new UserListFiltering(null, new PaginationParams(size / 2, 20));
+        range = new UserListFiltering(birthdays, null);
+        rangePage = new UserListFiltering(birthdays, new PaginationParams(0, 20));
+        var firstRangePage = userService.getAllUsers(rangePage);
+        var last = firstRangePage.get(firstRangePage.size() - 1);
+        cursorPage = new UserListFiltering(birthdays, new PaginationParams(0, 20,
+                new PageCursor(last.getBirthday(), last.getId()).encode()));
+        filteredRangePage = new UserListFiltering(birthdays, new PaginationParams(0, 20), null,
+                UserFilter.parse("country:UA AND lastName:last12*"));
+        sortedPage = new UserListFiltering(null, new PaginationParams(0, 20), null, null,
+                UserSort.parse("lastName,desc"));
+        unindexedSortedPage = new UserListFiltering(null, new PaginationParams(0, 20), null, null,
+                UserSort.parse("firstName,desc"));
+        payload = BenchmarkData.payloads(1).get(0);
+    }
+
+    @Benchmark
+    public List<User> getAllUsers() {
+        return userService.getAllUsers(unfiltered);
+    }
+
+    @Benchmark
+    public List<User> getFirstPage() {
+        return userService.getAllUsers(firstPage);
+    }
+
+    @Benchmark
+    public List<User> getDeepPage() {
+        return userService.getAllUsers(deepPage);
+    }
+
+    @Benchmark
+    public List<User> getBirthdayRange() {
+        return userService.getAllUsers(range);
+    }
+
+    @Benchmark
+    public List<User> getBirthdayRangePage() {
+        return userService.getAllUsers(rangePage);
+    }
+
+    @Benchmark
+    public List<User> getBirthdayRangeCursorPage() {
+        return userService.getAllUsers(cursorPage);
+    }
+
+    /**
+     * Birthday range page narrowed by an address and a name prefix, which the
+     * planner serves from the most selective index.
+     */
+    @Benchmark
+    public List<User> getFilteredBirthdayRangePage() {
+        return userService.getAllUsers(filteredRangePage);
+    }
+
+    /**
+     * Page sorted by an indexed field, read from the index until it is full.
+     */
+    @Benchmark
+    public List<User> getSortedPage() {
+        return userService.getAllUsers(sortedPage);
+    }
+
+    /**
+     * Page sorted by a field without an index, kept in a heap of the page size.
+     */
+    @Benchmark
+    public List<User> getUnindexedSortedPage() {
+        return userService.getAllUsers(unindexedSortedPage);
+    }
+
+    /**
+     * Payload mapping plus the repository insert.
+     */
+    @Benchmark
+    public void createUser() {
+        // emails are unique, so every invocation needs a fresh one
+        payload.setEmail("created" + created++ + "@example.com");
+        userService.createUser(payload);
+    }
+}
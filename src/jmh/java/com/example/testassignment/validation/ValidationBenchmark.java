@@ -0,0 +1,48 @@
+package com.example.testassignment.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private BirthdayValidator birthdayValidator;
+    private PhoneValidator phoneValidator;
+
+    @Setup
+    public void setUp() {
+        birthdayValidator = new BirthdayValidator();
+        ReflectionTestUtils.setField(birthdayValidator, "minUserAge", 18);
+        phoneValidator = new PhoneValidator();
+    }
+
+    @Benchmark
+    public void validateBirthday() {
+        birthdayValidator.validate("1985-06-15");
+    }
+
+    @Benchmark
+    public void validateDateRanges() {
+        birthdayValidator.validateDateRanges("1980-01-01", "1990-12-31");
+    }
+
+    @Benchmark
+    public boolean validatePhone() {
+        return phoneValidator.isValid("+380 67 123 4567", null);
+    }
+}
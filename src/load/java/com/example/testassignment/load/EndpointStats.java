@@ -0,0 +1,43 @@
+package com.example.testassignment.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count of one operation.
+ */
+class EndpointStats {
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long nanos, boolean success) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_TRACKABLE_MICROS));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        errors.reset();
+    }
+
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("errors", errors.sum());
+        summary.put("throughputPerSecond", Math.round(latencies.getTotalCount() / seconds));
+        summary.put("p50Micros", latencies.getValueAtPercentile(50));
+        summary.put("p99Micros", latencies.getValueAtPercentile(99));
+        summary.put("p999Micros", latencies.getValueAtPercentile(99.9));
+        summary.put("maxMicros", latencies.getMaxValue());
+        return summary;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.testassignment.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from system properties so they can be passed with -D.
+ *
+ * @param users       users created before the measurement starts
+ * @param concurrency number of client threads issuing requests
+ * @param warmup      time spent issuing requests before recording starts
+ * @param duration    time during which latencies are recorded
+ * @param mix         relative weight of every operation
+ */
+record LoadSettings(int users, int concurrency, Duration warmup, Duration duration, Map<Operation, Integer> mix) {
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("load.users", 10_000),
+                Integer.getInteger("load.concurrency", 32),
+                Duration.parse("PT" + System.getProperty("load.warmup", "10s").toUpperCase()),
+                Duration.parse("PT" + System.getProperty("load.duration", "30s").toUpperCase()),
+                parseMix(System.getProperty("load.mix", "list:40,get:40,post:5,put:5,patch:5,delete:5")));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (var entry : mix.split(",")) {
+            var parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    enum Operation {
+        LIST, GET, POST, PUT, PATCH, DELETE
+    }
+}
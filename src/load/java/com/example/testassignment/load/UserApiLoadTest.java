@@ -0,0 +1,196 @@
+package com.example.testassignment.load;
+
+import com.example.testassignment.load.LoadSettings.Operation;
+import com.example.testassignment.payload.UserPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives every user endpoint of the application started on a random port with a
+ * configurable operation mix, concurrency and dataset size, and writes latency
+ * percentiles and throughput per operation to {@code target/load-report.json}.
+ * See the {@code load} profile in the pom for the parameters.
+ * <p>
+ * Every client runs on its own virtual thread and keeps its own connection busy,
+ * so the concurrency can go to thousands of open connections; Tomcat's connection limit is
+ * lifted for the same reason, leaving the server's request threads (platform pool
+ * or virtual with {@code spring.threads.virtual.enabled}) as what is compared.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.max-connections=-1")
+class UserApiLoadTest {
+    private static final int BATCH_SIZE = 1000;
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1940, 1, 1);
+    private static final int BIRTHDAY_SPAN_DAYS = 365 * 65;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final AtomicInteger maxId = new AtomicInteger();
+
+    @Test
+    public void measureUserEndpoints() throws Exception {
+        var settings = LoadSettings.fromSystemProperties();
+        seed(settings.users());
+
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        settings.mix().keySet().forEach(operation -> stats.put(operation, new EndpointStats()));
+        var operations = weighted(settings.mix());
+
+        run(settings.concurrency(), settings.warmup(), operations, stats);
+        stats.values().forEach(EndpointStats::reset);
+        run(settings.concurrency(), settings.duration(), operations, stats);
+
+        var report = report(settings, virtualThreads, stats);
+        var json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        Files.writeString(Path.of("target", "load-report.json"), json);
+        stats.values().forEach(endpoint -> Assertions.assertTrue(
+                (long) endpoint.summary(1).get("requests") > 0, "every operation of the mix ran"));
+    }
+
+    private void seed(int users) throws IOException, InterruptedException {
+        for (int created = 0; created < users; created += BATCH_SIZE) {
+            List<UserPayload> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = created; i < Math.min(users, created + BATCH_SIZE); i++) {
+                batch.add(payload(i));
+            }
+            var response = send(HttpRequest.newBuilder(uri("/api/v1/users/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(batch))));
+            Assertions.assertEquals(200, response.statusCode(), response.body());
+            maxId.addAndGet(batch.size());
+        }
+    }
+
+    private void run(int concurrency, Duration duration, List<Operation> operations,
+                     Map<Operation, EndpointStats> stats) throws InterruptedException {
+        var deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < concurrency; i++) {
+            clients.submit(() -> {
+                var random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    var operation = operations.get(random.nextInt(operations.size()));
+                    var start = System.nanoTime();
+                    boolean success;
+                    try {
+                        var request = request(operation, random);
+                        start = System.nanoTime();
+                        var status = send(request).statusCode();
+                        // deleted users and emails taken by a random POST are expected under the mix
+                        success = status < 300 || status == 404 || status == 409;
+                    } catch (IOException e) {
+                        success = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    stats.get(operation).record(System.nanoTime() - start, success);
+                }
+            });
+        }
+        clients.shutdown();
+        Assertions.assertTrue(clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS));
+    }
+
+    private HttpRequest.Builder request(Operation operation, ThreadLocalRandom random) throws IOException {
+        var id = 1 + random.nextInt(maxId.get());
+        return switch (operation) {
+            case LIST -> {
+                var from = FIRST_BIRTHDAY.plusDays(random.nextInt(BIRTHDAY_SPAN_DAYS));
+                yield HttpRequest.newBuilder(uri("/api/v1/users?from=" + from + "&to=" + from.plusYears(1)
+                        + "&limit=20")).GET();
+            }
+            case GET -> HttpRequest.newBuilder(uri("/api/v1/users/" + id)).GET();
+            case POST -> {
+                maxId.incrementAndGet();
+                yield json(HttpRequest.newBuilder(uri("/api/v1/users")), "POST", payload(random.nextInt()));
+            }
+            // user id was seeded from payload(id - 1), so the PUT keeps its email
+            case PUT -> json(HttpRequest.newBuilder(uri("/api/v1/users/" + id)), "PUT", payload(id - 1));
+            case PATCH -> json(HttpRequest.newBuilder(uri("/api/v1/users/" + id)), "PATCH",
+                    Map.of("phoneNumber", "+380" + (100000000 + random.nextInt(900000000))));
+            case DELETE -> HttpRequest.newBuilder(uri("/api/v1/users/" + id)).DELETE();
+        };
+    }
+
+    private HttpRequest.Builder json(HttpRequest.Builder request, String method, Object body) throws IOException {
+        return request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static UserPayload payload(int i) {
+        var birthday = FIRST_BIRTHDAY.plusDays(Math.floorMod(i, BIRTHDAY_SPAN_DAYS));
+        var payload = new UserPayload("First" + i, "Last" + i, "user" + i + "@example.com", birthday.toString());
+        payload.setPhoneNumber("+380 67 123 4567");
+        return payload;
+    }
+
+    private static List<Operation> weighted(Map<Operation, Integer> mix) {
+        List<Operation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        return operations;
+    }
+
+    private static Map<String, Object> report(LoadSettings settings, boolean virtualThreads,
+                                              Map<Operation, EndpointStats> stats) {
+        var seconds = settings.duration().toMillis() / 1000.0;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("users", settings.users());
+        report.put("concurrency", settings.concurrency());
+        report.put("serverThreads", virtualThreads ? "virtual" : "platform");
+        report.put("durationSeconds", seconds);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((operation, endpoint) -> endpoints.put(operation.name().toLowerCase(), endpoint.summary(seconds)));
+        report.put("endpoints", endpoints);
+        return report;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.testassignment.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent map bounded to {@code maxEntries} with CLOCK eviction: a hand sweeps
+ * the map and removes the first entry that was not read since the previous sweep.
+ */
+class ClockCache<K, V> {
+    private final int maxEntries;
+    private final Runnable onEviction;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<K, Entry<V>>> hand;
+
+    ClockCache(int maxEntries, Runnable onEviction) {
+        this.maxEntries = maxEntries;
+        this.onEviction = onEviction;
+    }
+
+    V get(K key) {
+        var entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.value;
+    }
+
+    void put(K key, V value) {
+        entries.put(key, new Entry<>(value));
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    void remove(K key) {
+        entries.remove(key);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        // one thread sweeps at a time, the others go on with a slightly larger cache
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (entries.size() > maxEntries) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                var next = hand.next();
+                var entry = next.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(next.getKey(), entry)) {
+                    onEviction.run();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile boolean referenced;
+
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.testassignment.cache;
+
+import com.example.testassignment.dto.UserDto;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.repositories.UserChangeListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Serialized {@link UserDto} bytes of recently read users, keyed by id. An entry
+ * is only served for the very {@link User} instance it was written from, so a
+ * read racing with a write never gets stale bytes; the repository callbacks drop
+ * entries of changed users right away so they don't hold memory.
+ * <p>
+ * At most {@code user.cache.max-entries} users are kept (0 disables the cache),
+ * evicted in CLOCK order beyond that.
+ */
+@Component
+public class UserJsonCache implements UserChangeListener {
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final ClockCache<Integer, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserJsonCache(ObjectMapper objectMapper,
+                         @Value("${user.cache.max-entries}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("user.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("user.cache.requests").tag("result", "miss").register(meterRegistry);
+        var evictions = Counter.builder("user.cache.evictions").register(meterRegistry);
+        this.entries = new ClockCache<>(maxEntries, evictions::increment);
+        Gauge.builder("user.cache.size", entries, ClockCache::size).register(meterRegistry);
+    }
+
+    /**
+     * JSON of {@code new UserDto(user)}. The returned array may be shared and must
+     * not be modified.
+     */
+    public byte[] get(User user) {
+        if (maxEntries == 0) {
+            return serialize(user);
+        }
+        var entry = entries.get(user.getId());
+        if (entry != null && entry.user() == user) {
+            hits.increment();
+            return entry.json();
+        }
+        misses.increment();
+        var json = serialize(user);
+        entries.put(user.getId(), new Entry(user, json));
+        return json;
+    }
+
+    @Override
+    public void onUpdate(User previous, User current) {
+        entries.remove(previous.getId());
+    }
+
+    @Override
+    public void onDelete(User user) {
+        entries.remove(user.getId());
+    }
+
+    private byte[] serialize(User user) {
+        try {
+            return objectMapper.writeValueAsBytes(new UserDto(user));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Entry(User user, byte[] json) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.testassignment.cache;
+
+import com.example.testassignment.datafilters.UserFilter;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Results of filtered user listings keyed by the normalized filter. Each result is
+ * stamped with the repository version read before it was queried and is only
+ * served while the repository is still at that version, so any write invalidates
+ * every entry without touching the cache; outdated entries are replaced on their
+ * next read or evicted.
+ * <p>
+ * At most {@code user.list-cache.max-entries} results are kept (0 disables the
+ * cache), evicted in CLOCK order beyond that. Entries reference the stored users
+ * rather than copies of them.
+ */
+@Component
+public class UserListCache {
+    private final int maxEntries;
+    private final ClockCache<Key, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserListCache(@Value("${user.list-cache.max-entries}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("user.list-cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("user.list-cache.requests").tag("result", "miss").register(meterRegistry);
+        var evictions = Counter.builder("user.list-cache.evictions").register(meterRegistry);
+        this.entries = new ClockCache<>(maxEntries, evictions::increment);
+        Gauge.builder("user.list-cache.size", entries, ClockCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Users listed for {@code filter} at repository {@code version}, running
+     * {@code query} when there is no result of that version yet. The version has
+     * to be read before the query so a concurrent write can only make the stored
+     * result outdated, never hide it. Returned lists are shared and must not be
+     * modified.
+     */
+    public List<User> get(UserListFiltering filter, long version, Supplier<List<User>> query) {
+        if (maxEntries == 0) {
+            return query.get();
+        }
+        var key = Key.of(filter);
+        var entry = entries.get(key);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry.users();
+        }
+        misses.increment();
+        var users = query.get();
+        entries.put(key, new Entry(version, users));
+        return users;
+    }
+
+    private record Key(int from, int to, int offset, int limit, String after,
+                       String country, String city, Integer zipCode, UserFilter where, UserSort sort) {
+
+        static Key of(UserListFiltering filter) {
+            var range = filter == null ? null : filter.getRange();
+            var pagination = filter == null ? null : filter.getPagination();
+            var address = filter == null ? null : filter.getAddress();
+            return new Key(range == null ? EpochDays.NONE : range.getFrom(),
+                    range == null ? EpochDays.NONE : range.getTo(),
+                    pagination == null ? 0 : pagination.getOffset(),
+                    pagination == null ? 0 : pagination.getLimit(),
+                    pagination == null ? null : pagination.getAfter(),
+                    address == null ? null : address.getCountry(),
+                    address == null ? null : address.getCity(),
+                    address == null ? null : address.getZipCode(),
+                    filter == null ? null : filter.getWhere(),
+                    filter == null ? null : filter.getSort());
+        }
+    }
+
+    private record Entry(long version, List<User> users) {
+    }
+}
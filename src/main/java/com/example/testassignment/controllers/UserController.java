@@ -1,47 +1,145 @@
 package com.example.testassignment.controllers;
 
-import com.example.testassignment.datafilters.BirthdayRangeFiltering;
-import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.cache.UserJsonCache;
+import com.example.testassignment.cache.UserListCache;
+import com.example.testassignment.datafilters.PageCursor;
 import com.example.testassignment.datafilters.UserListFiltering;
-import com.example.testassignment.dto.UserDto;
+import com.example.testassignment.dto.BatchCreateResultDto;
+import com.example.testassignment.dto.BatchItemErrorDto;
+import com.example.testassignment.dto.QueryPlanDto;
+import com.example.testassignment.dto.UserCountsDto;
 import com.example.testassignment.dto.UsersListDto;
+import com.example.testassignment.entity.User;
 import com.example.testassignment.exceptions.InvalidDataException;
 import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.helper.UserMapper;
+import com.example.testassignment.helper.UserPatcher;
 import com.example.testassignment.payload.UpdateUserPayload;
 import com.example.testassignment.payload.UserPayload;
 import com.example.testassignment.servise.UserService;
+import com.example.testassignment.stats.UserCounts;
 import com.example.testassignment.validation.BirthdayValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("api/v1/users")
 public class UserController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+    private static final String JSON_PATCH_VALUE = "application/json-patch+json";
+    /**
+     * Users of an NDJSON batch validated and created at once, so that an upload of
+     * any size is never held in memory as a whole.
+     */
+    private static final int NDJSON_CHUNK = 1000;
+
     private final UserService userService;
     private final BirthdayValidator birthdayValidator;
+    private final UserStreamWriter userStreamWriter;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserJsonCache userJsonCache;
+    private final UserListCache userListCache;
+    private final UserCounts userCounts;
 
     @GetMapping
-    public UsersListDto getAllUsers(@RequestParam(required = false) String from,
-                                    @RequestParam(required = false) String to,
+    public UsersListDto getAllUsers(@ModelAttribute UserListParams params, WebRequest request) {
+        var filtering = UserRequests.filtering(birthdayValidator, params);
+        var version = userService.getVersion();
+        if (request.checkNotModified(UserRequests.etag(version))) {
+            return null;
+        }
+        var users = userListCache.get(filtering, version, () -> userService.getAllUsers(filtering));
+        return new UsersListDto(users, PageCursor.next(filtering, users));
+    }
+
+    @GetMapping(produces = NDJSON_VALUE)
+    public StreamingResponseBody streamUsers(@ModelAttribute UserListParams params, WebRequest request) {
+        var filtering = UserRequests.filtering(birthdayValidator, params);
+        if (request.checkNotModified(UserRequests.etag(userService.getVersion()))) {
+            return null;
+        }
+        return userStreamWriter.ndjson(userService.streamUsers(filtering), request);
+    }
+
+    @GetMapping(params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamUsersAsJson(@ModelAttribute UserListParams params, WebRequest request) {
+        var filtering = UserRequests.filtering(birthdayValidator, params);
+        if (request.checkNotModified(UserRequests.etag(userService.getVersion()))) {
+            return null;
+        }
+        return userStreamWriter.jsonArray(userService.streamUsers(filtering), request);
+    }
+
+    @GetMapping(params = "explain=true")
+    public QueryPlanDto explainUsers(@ModelAttribute UserListParams params) {
+        return userService.explainUsers(UserRequests.filtering(birthdayValidator, params));
+    }
+
+    @GetMapping("/search")
+    public UsersListDto searchUsers(@RequestParam String q,
+                                    @RequestParam(defaultValue = "false") boolean fuzzy,
                                     @RequestParam(defaultValue = "0") int offset,
-                                    @RequestParam(defaultValue = "0") int limit) {
-        birthdayValidator.validateDateRanges(from, to);
-        var rangeFiltering = new BirthdayRangeFiltering(from, to);
-        var pagination = new PaginationParams(offset, limit);
-        var filtering = new UserListFiltering(rangeFiltering, pagination);
-        return new UsersListDto(userService.getAllUsers(filtering));
+                                    @RequestParam(defaultValue = "0") int limit,
+                                    @RequestParam(required = false) String after,
+                                    WebRequest request) {
+        if (q.isBlank()) {
+            throw new InvalidDataException("q is required");
+        }
+        var pagination = UserRequests.pagination(offset, limit, after);
+        if (request.checkNotModified(UserRequests.etag(userService.getVersion()))) {
+            return null;
+        }
+        var users = userService.searchUsers(q, fuzzy, pagination);
+        return new UsersListDto(users, PageCursor.next(new UserListFiltering(null, pagination), users));
     }
 
-    @GetMapping("/{userId}")
-    public UserDto getUser(@PathVariable("userId") int id) {
-        UserDto userDto = new UserDto(userService.getUser(id)
-                .orElseThrow(() -> new NoSuchUserException()));
-        return userDto;
+    @GetMapping("/counts")
+    public UserCountsDto countUsers() {
+        return userCounts.get();
+    }
+
+    @GetMapping(value = "/{userId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getUser(@PathVariable("userId") int id, WebRequest request) {
+        var user = userService.getUser(id)
+                .orElseThrow(() -> new NoSuchUserException());
+        if (request.checkNotModified(UserRequests.etag(user.getVersion()))) {
+            return null;
+        }
+        return userJsonCache.get(user);
+    }
+
+    @GetMapping(value = "/email/{email}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getUserByEmail(@PathVariable("email") String email, WebRequest request) {
+        var user = userService.getUserByEmail(email)
+                .orElseThrow(() -> new NoSuchUserException());
+        if (request.checkNotModified(UserRequests.etag(user.getVersion()))) {
+            return null;
+        }
+        return userJsonCache.get(user);
     }
 
     @PostMapping
@@ -59,6 +157,43 @@ public class UserController {
         userService.createUser(userPayload);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchCreateResultDto addUsers(@RequestBody List<UserPayload> userPayloads) {
+        return createValid(userPayloads);
+    }
+
+    /**
+     * Creates the users of an NDJSON body chunk by chunk as it is read. A line that
+     * isn't a user fails the whole request if it comes before any chunk was
+     * created, and otherwise ends the batch with an error at its index.
+     */
+    @PostMapping(value = "/batch", consumes = NDJSON_VALUE)
+    public BatchCreateResultDto addUsers(InputStream body) throws IOException {
+        var result = new BatchCreateResultDto(new ArrayList<>(), new ArrayList<>());
+        List<UserPayload> chunk = new ArrayList<>(NDJSON_CHUNK);
+        var chunkStart = 0;
+        try (MappingIterator<UserPayload> iterator = objectMapper.readerFor(UserPayload.class).readValues(body)) {
+            // unlike hasNext() and next(), these throw a malformed line as a checked JsonProcessingException
+            while (iterator.hasNextValue()) {
+                chunk.add(iterator.nextValue());
+                if (chunk.size() == NDJSON_CHUNK) {
+                    addChunk(result, chunkStart, createValid(chunk));
+                    chunkStart += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            if (chunkStart == 0) {
+                throw new InvalidDataException("Invalid NDJSON body");
+            }
+            addChunk(result, chunkStart, createValid(chunk));
+            result.getErrors().add(new BatchItemErrorDto(chunkStart + chunk.size(), "Invalid NDJSON line"));
+            return result;
+        }
+        addChunk(result, chunkStart, createValid(chunk));
+        return result;
+    }
+
     @DeleteMapping("/{userId}")
     public void deleteUser(@PathVariable("userId") int id) {
         userService.deleteUser(id);
@@ -67,7 +202,8 @@ public class UserController {
     @PutMapping("/{userId}")
     public void updateUser(@PathVariable("userId") int id,
                            @Valid @RequestBody UserPayload userPayload,
-                           BindingResult bindingResult) {
+                           BindingResult bindingResult,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             var errorMessage = bindingResult.getAllErrors()
                     .stream()
@@ -77,14 +213,15 @@ public class UserController {
             throw new InvalidDataException(errorMessage);
         }
         birthdayValidator.validate(userPayload.getBirthday());
-        userService.updateUser(id, userPayload);
+        userService.updateUser(id, userPayload, UserRequests.expectedVersion(ifMatch));
     }
 
 
     @PatchMapping("/{userId}")
     public void updatePartiallyUser(@PathVariable("userId") int userId,
                                     @Valid @RequestBody UpdateUserPayload userPayload,
-                                    BindingResult bindingResult) {
+                                    BindingResult bindingResult,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         if (bindingResult.hasErrors()) {
             var errorMessage = bindingResult.getAllErrors()
@@ -97,6 +234,52 @@ public class UserController {
         if (userPayload.getBirthday() != null) {
             birthdayValidator.validate(userPayload.getBirthday());
         }
-        userService.updateUser(userId, userPayload);
+        userService.updateUser(userId, userPayload, UserRequests.expectedVersion(ifMatch));
+    }
+
+    @PatchMapping(value = "/{userId}", consumes = MERGE_PATCH_VALUE)
+    public void mergePatchUser(@PathVariable("userId") int userId, @RequestBody JsonNode patch,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.patchUser(userId, UserRequests.expectedVersion(ifMatch), user -> {
+            UserPatcher.mergePatch(user, patch);
+            validatePatched(user);
+        });
+    }
+
+    @PatchMapping(value = "/{userId}", consumes = JSON_PATCH_VALUE)
+    public void jsonPatchUser(@PathVariable("userId") int userId, @RequestBody JsonNode operations,
+                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.patchUser(userId, UserRequests.expectedVersion(ifMatch), user -> {
+            UserPatcher.jsonPatch(user, operations);
+            validatePatched(user);
+        });
+    }
+
+    private void validatePatched(User user) {
+        var userPayload = UserMapper.toPayload(user);
+        var errorMessage = validator.validate(userPayload)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .findAny();
+        if (errorMessage.isPresent()) {
+            throw new InvalidDataException(errorMessage.get());
+        }
+        birthdayValidator.validate(userPayload.getBirthday());
+    }
+
+    private static void addChunk(BatchCreateResultDto result, int chunkStart, BatchCreateResultDto chunkResult) {
+        result.getCreated().addAll(chunkResult.getCreated());
+        chunkResult.getErrors().forEach(error -> result.getErrors()
+                .add(new BatchItemErrorDto(chunkStart + error.getIndex(), error.getMessage())));
+    }
+
+    private BatchCreateResultDto createValid(List<UserPayload> userPayloads) {
+        List<BatchItemErrorDto> errors = new ArrayList<>();
+        var validPayloads = UserRequests.validPayloads(validator, birthdayValidator, userPayloads, errors);
+        if (validPayloads.isEmpty()) {
+            return new BatchCreateResultDto(List.of(), errors);
+        }
+        var created = userService.createUsers(List.copyOf(validPayloads.values()));
+        return UserRequests.batchResult(List.copyOf(validPayloads.keySet()), created, errors);
     }
 }
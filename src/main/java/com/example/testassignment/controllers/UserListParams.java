@@ -0,0 +1,23 @@
+package com.example.testassignment.controllers;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Query parameters of the user listings, bound once for the JSON, streamed and
+ * explained variants of {@code GET /api/v1/users}.
+ */
+@Data
+@NoArgsConstructor
+public class UserListParams {
+    private String from;
+    private String to;
+    private int offset;
+    private int limit;
+    private String after;
+    private String country;
+    private String city;
+    private Integer zipCode;
+    private String filter;
+    private String sort;
+}
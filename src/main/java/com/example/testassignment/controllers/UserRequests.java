@@ -0,0 +1,143 @@
+package com.example.testassignment.controllers;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserFilter;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.dto.BatchCreateResultDto;
+import com.example.testassignment.dto.BatchItemErrorDto;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.CreatedUsers;
+import com.example.testassignment.validation.BirthdayValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request parameter and header handling shared by the servlet and reactive user
+ * controllers.
+ */
+final class UserRequests {
+    /**
+     * Tags the ETags of this run. Neither the repository version nor, without
+     * persistence, user ids and versions survive a restart, so a version handed out
+     * before one can name different content after it.
+     */
+    private static final String BOOT = Long.toHexString(new SecureRandom().nextLong());
+    private static final String ETAG_PREFIX = "\"" + BOOT + "-";
+
+    private UserRequests() {
+    }
+
+    static UserListFiltering filtering(BirthdayValidator birthdayValidator,
+                                       String from, String to, int offset, int limit, String after) {
+        var rangeFiltering = birthdayValidator.validateDateRanges(from, to);
+        return new UserListFiltering(rangeFiltering, pagination(offset, limit, after));
+    }
+
+    static UserListFiltering filtering(BirthdayValidator birthdayValidator, UserListParams params) {
+        var filtering = filtering(birthdayValidator, params.getFrom(), params.getTo(),
+                params.getOffset(), params.getLimit(), params.getAfter());
+        var address = new AddressFiltering(blankToNull(params.getCountry()), blankToNull(params.getCity()),
+                params.getZipCode());
+        if (address.hasValues()) {
+            filtering.setAddress(address);
+        }
+        if (blankToNull(params.getFilter()) != null) {
+            filtering.setWhere(UserFilter.parse(params.getFilter()));
+        }
+        if (blankToNull(params.getSort()) != null) {
+            filtering.setSort(UserSort.parse(params.getSort()));
+        }
+        return filtering;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    static PaginationParams pagination(int offset, int limit, String after) {
+        if (after != null && offset != 0) {
+            throw new InvalidDataException("offset can't be combined with after");
+        }
+        return new PaginationParams(offset, limit, after);
+    }
+
+    static String etag(long version) {
+        return ETAG_PREFIX + version + "\"";
+    }
+
+    /**
+     * Version named by a strong {@code If-Match} ETag of this run; {@code *} or no
+     * header matches any version.
+     */
+    static long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.equals("*")) {
+            return User.ANY_VERSION;
+        }
+        if (ifMatch.length() > ETAG_PREFIX.length() + 1
+                && ifMatch.startsWith(ETAG_PREFIX) && ifMatch.endsWith("\"")) {
+            try {
+                return Long.parseLong(ifMatch, ETAG_PREFIX.length(), ifMatch.length() - 1, 10);
+            } catch (NumberFormatException e) {
+                // not one of our ETags, so it can't match
+            }
+        }
+        throw new VersionConflictException("If-Match doesn't match the current version");
+    }
+
+    /**
+     * The payloads of a batch that pass validation by their index, in order; every
+     * other one is reported in {@code errors} with its index.
+     */
+    static Map<Integer, UserPayload> validPayloads(Validator validator, BirthdayValidator birthdayValidator,
+                                                   List<UserPayload> userPayloads, List<BatchItemErrorDto> errors) {
+        Map<Integer, UserPayload> validPayloads = new LinkedHashMap<>();
+        for (int i = 0; i < userPayloads.size(); i++) {
+            var userPayload = userPayloads.get(i);
+            if (userPayload == null) {
+                errors.add(new BatchItemErrorDto(i, "user is required"));
+                continue;
+            }
+            var errorMessage = validator.validate(userPayload)
+                    .stream()
+                    .map(ConstraintViolation::getMessage)
+                    .findAny();
+            if (errorMessage.isPresent()) {
+                errors.add(new BatchItemErrorDto(i, errorMessage.get()));
+                continue;
+            }
+            try {
+                birthdayValidator.validate(userPayload.getBirthday());
+                validPayloads.put(i, userPayload);
+            } catch (InvalidDataException e) {
+                errors.add(new BatchItemErrorDto(i, e.getMessage()));
+            }
+        }
+        return validPayloads;
+    }
+
+    /**
+     * The batch result of creating the {@link #validPayloads valid payloads}
+     * {@code indexes}: the new ids, and the {@code errors} of validation together
+     * with the users that weren't stored, by index in the batch.
+     */
+    static BatchCreateResultDto batchResult(List<Integer> indexes, CreatedUsers created,
+                                            List<BatchItemErrorDto> errors) {
+        List<BatchItemErrorDto> allErrors = new ArrayList<>(errors);
+        created.failures().forEach((index, failure) ->
+                allErrors.add(new BatchItemErrorDto(indexes.get(index), failure.getMessage())));
+        allErrors.sort(Comparator.comparingInt(BatchItemErrorDto::getIndex));
+        return new BatchCreateResultDto(created.users().stream().map(User::getId).toList(), allErrors);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.testassignment.controllers;
+
+import com.example.testassignment.entity.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * Writes users to the response one at a time as they are pulled from the stream,
+ * so memory use does not depend on the size of the result. A large result takes
+ * longer than the async timeout of the other endpoints, so the request it is
+ * written for gets {@code user.stream.timeout} instead.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class UserStreamWriter {
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    UserStreamWriter(ObjectMapper objectMapper, @Value("${user.stream.timeout}") Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    /**
+     * One JSON document per line (application/x-ndjson).
+     */
+    StreamingResponseBody ndjson(Stream<User> users, WebRequest request) {
+        extendTimeout(request);
+        return out -> write(users, out, false);
+    }
+
+    /**
+     * The same {@code {"data":[...]}} document as the buffered endpoint, produced
+     * incrementally.
+     */
+    StreamingResponseBody jsonArray(Stream<User> users, WebRequest request) {
+        extendTimeout(request);
+        return out -> write(users, out, true);
+    }
+
+    /**
+     * Sets the timeout of the async request the handler adapter prepared; starting
+     * the stream keeps it since the stream has none of its own.
+     */
+    private void extendTimeout(WebRequest request) {
+        var asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(timeout.toMillis());
+        }
+    }
+
+    private void write(Stream<User> users, OutputStream out, boolean wrapped) throws IOException {
+        try (users; JsonGenerator generator = objectMapper.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (wrapped) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("data");
+            }
+            var iterator = users.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                if (!wrapped) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (wrapped) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+    }
+}
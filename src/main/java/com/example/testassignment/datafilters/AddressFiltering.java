@@ -0,0 +1,22 @@
+package com.example.testassignment.datafilters;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Address values a user has to match; {@code null} matches any value. Country and
+ * city are compared ignoring case and surrounding whitespace.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AddressFiltering {
+    private String country;
+    private String city;
+    private Integer zipCode;
+
+    public boolean hasValues() {
+        return country != null || city != null || zipCode != null;
+    }
+}
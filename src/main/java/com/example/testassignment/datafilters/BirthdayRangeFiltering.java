@@ -1,26 +1,38 @@
 package com.example.testassignment.datafilters;
 
-import com.example.testassignment.helper.StringToDateConverter;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.helper.EpochDays;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.Date;
-import java.util.Optional;
-
+/**
+ * Exclusive birthday bounds as epoch days; {@link EpochDays#NONE} leaves a side open.
+ */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class BirthdayRangeFiltering {
-    private Date from;
-    private Date to;
+    private int from = EpochDays.NONE;
+    private int to = EpochDays.NONE;
 
     public BirthdayRangeFiltering(String from, String to) {
-        this.from = Optional.ofNullable(from)
-                .map(StringToDateConverter::convert)
-                .orElse(null);
-        this.to = Optional.ofNullable(to)
-                .map(StringToDateConverter::convert)
-                .orElse(null);
+        this.from = parse(from);
+        this.to = parse(to);
+    }
+
+    public boolean hasBounds() {
+        return from != EpochDays.NONE || to != EpochDays.NONE;
+    }
+
+    private static int parse(String date) {
+        if (date == null) {
+            return EpochDays.NONE;
+        }
+        var epochDay = EpochDays.parse(date);
+        if (epochDay == EpochDays.NONE) {
+            throw new InvalidDataException("Invalid date " + date);
+        }
+        return epochDay;
     }
 }
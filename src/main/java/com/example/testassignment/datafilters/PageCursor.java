@@ -0,0 +1,69 @@
+package com.example.testassignment.datafilters;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.helper.EpochDays;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque keyset position in a user listing: the id of the last returned user and,
+ * for birthday range listings, its birthday as an epoch day ({@link EpochDays#NONE}
+ * otherwise). Clients only ever see the encoded form.
+ */
+public record PageCursor(int birthday, int id) {
+    private static final String ID_PREFIX = "i";
+    private static final String BIRTHDAY_PREFIX = "b";
+    private static final String SEPARATOR = ".";
+
+    public boolean isBirthdayOrdered() {
+        return birthday != EpochDays.NONE;
+    }
+
+    public String encode() {
+        var raw = isBirthdayOrdered()
+                ? BIRTHDAY_PREFIX + SEPARATOR + birthday + SEPARATOR + id
+                : ID_PREFIX + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            var parts = raw.split("\\" + SEPARATOR);
+            if (parts.length == 2 && ID_PREFIX.equals(parts[0])) {
+                return new PageCursor(EpochDays.NONE, Integer.parseInt(parts[1]));
+            }
+            if (parts.length == 3 && BIRTHDAY_PREFIX.equals(parts[0])) {
+                var birthday = Integer.parseInt(parts[1]);
+                if (birthday != EpochDays.NONE) {
+                    return new PageCursor(birthday, Integer.parseInt(parts[2]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the common error below
+        }
+        throw new InvalidDataException("Invalid cursor " + cursor);
+    }
+
+    /**
+     * Cursor of the page following {@code page}, or {@code null} when the listing
+     * is not limited, is sorted or the page was the last one.
+     */
+    public static String next(UserListFiltering filter, List<User> page) {
+        if (filter == null || filter.getPagination() == null || filter.getSort() != null) {
+            return null;
+        }
+        var limit = filter.getPagination().getLimit();
+        if (limit == 0 || page.size() < limit) {
+            return null;
+        }
+        var last = page.get(page.size() - 1);
+        var byBirthday = filter.getRange() != null && filter.getRange().hasBounds();
+        return new PageCursor(byBirthday ? last.getBirthday() : EpochDays.NONE, last.getId()).encode();
+    }
+}
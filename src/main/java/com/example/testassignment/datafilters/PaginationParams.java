@@ -10,4 +10,13 @@ import lombok.NoArgsConstructor;
 public class PaginationParams {
     private int offset;
     private int limit;
+    /**
+     * Encoded {@link PageCursor} to resume after; used instead of {@code offset}.
+     */
+    private String after;
+
+    public PaginationParams(int offset, int limit) {
+        this.offset = offset;
+        this.limit = limit;
+    }
 }
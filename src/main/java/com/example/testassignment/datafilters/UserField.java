@@ -0,0 +1,93 @@
+package com.example.testassignment.datafilters;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.helper.EpochDays;
+
+/**
+ * User fields a {@link UserFilter} can test and a {@link UserSort} can order by,
+ * under their request names. Text fields hold strings; id, birthday (as epoch
+ * days) and zip code hold ints.
+ */
+public enum UserField {
+    ID("id"),
+    FIRST_NAME("firstName"),
+    LAST_NAME("lastName"),
+    EMAIL("email"),
+    BIRTHDAY("birthday"),
+    COUNTRY("country"),
+    CITY("city"),
+    ZIP_CODE("zipCode");
+
+    private final String requestName;
+
+    UserField(String requestName) {
+        this.requestName = requestName;
+    }
+
+    public String getRequestName() {
+        return requestName;
+    }
+
+    public boolean isText() {
+        return this != ID && this != BIRTHDAY && this != ZIP_CODE;
+    }
+
+    public static UserField of(String requestName) {
+        for (UserField field : values()) {
+            if (field.requestName.equalsIgnoreCase(requestName)) {
+                return field;
+            }
+        }
+        throw new InvalidDataException("Unknown field " + requestName);
+    }
+
+    /**
+     * Value of this text field of {@code user}, or {@code null} if it has none.
+     */
+    public String text(User user) {
+        return switch (this) {
+            case FIRST_NAME -> user.getFirstName();
+            case LAST_NAME -> user.getLastName();
+            case EMAIL -> user.getEmail();
+            case COUNTRY -> user.getAddress() == null ? null : user.getAddress().getCountry();
+            case CITY -> user.getAddress() == null ? null : user.getAddress().getCity();
+            default -> throw new IllegalStateException(this + " is not a text field");
+        };
+    }
+
+    /**
+     * Value of this int field of {@code user}, or {@code null} if it has none.
+     */
+    public Integer number(User user) {
+        return switch (this) {
+            case ID -> user.getId();
+            case BIRTHDAY -> user.hasBirthday() ? user.getBirthday() : null;
+            case ZIP_CODE -> user.getAddress() == null ? null : user.getAddress().getZipCode();
+            default -> throw new IllegalStateException(this + " is not an int field");
+        };
+    }
+
+    /**
+     * Int value of this field written as in a request: a {@code yyyy-MM-dd} date
+     * for the birthday, a decimal number for the id and zip code.
+     */
+    public int parseNumber(String text) {
+        if (this == BIRTHDAY) {
+            var epochDay = EpochDays.parse(text);
+            if (epochDay == EpochDays.NONE) {
+                throw new InvalidDataException("Invalid date " + text);
+            }
+            return epochDay;
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Invalid " + requestName + " " + text);
+        }
+    }
+
+    public String formatNumber(int value) {
+        return this == BIRTHDAY ? EpochDays.format(value) : Integer.toString(value);
+    }
+}
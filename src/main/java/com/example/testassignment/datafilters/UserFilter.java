@@ -0,0 +1,165 @@
+package com.example.testassignment.datafilters;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Condition on user fields: equality, prefix and range tests combined with
+ * {@link And} and {@link Or}. Text is compared ignoring case and surrounding
+ * whitespace; ranges are exclusive like {@link BirthdayRangeFiltering}. A user
+ * without a value for a field never matches a test of that field.
+ * <p>
+ * The written form, parsed by {@link #parse(String)} and produced by
+ * {@link #toString()}, is {@code field:value} for equality, {@code field:value*}
+ * for a prefix and {@code field:from..to} for a range with either side left out
+ * when open, joined with {@code AND} (or just a space) and {@code OR} and grouped
+ * with parentheses; values with spaces go in double quotes. Dates are
+ * {@code yyyy-MM-dd}, for example
+ * {@code country:Ukraine AND (lastName:smi* OR birthday:1990-01-01..)}.
+ */
+public sealed interface UserFilter extends Predicate<User> {
+
+    static UserFilter parse(String text) {
+        return new UserFilterParser(text).parse();
+    }
+
+    /**
+     * Conjunction of {@code filters} with nested conjunctions flattened, the only
+     * filter if there is one, or {@code null} if there are none.
+     */
+    static UserFilter allOf(List<UserFilter> filters) {
+        List<UserFilter> conjuncts = new ArrayList<>(filters.size());
+        for (UserFilter filter : filters) {
+            conjuncts.addAll(filter.conjuncts());
+        }
+        if (conjuncts.isEmpty()) {
+            return null;
+        }
+        return conjuncts.size() == 1 ? conjuncts.get(0) : new And(conjuncts);
+    }
+
+    /**
+     * The filters that all have to match for this one to match.
+     */
+    default List<UserFilter> conjuncts() {
+        return List.of(this);
+    }
+
+    record Equals(UserField field, Object value) implements UserFilter {
+        public Equals {
+            if (field.isText() ? !(value instanceof String) : !(value instanceof Integer)) {
+                throw new InvalidDataException("Invalid " + field.getRequestName() + " " + value);
+            }
+        }
+
+        @Override
+        public boolean test(User user) {
+            if (field.isText()) {
+                var actual = field.text(user);
+                return actual != null && actual.trim().equalsIgnoreCase(((String) value).trim());
+            }
+            return value.equals(field.number(user));
+        }
+
+        @Override
+        public String toString() {
+            return field.getRequestName() + ":"
+                    + (field.isText() ? quote((String) value) : field.formatNumber((Integer) value));
+        }
+    }
+
+    record Prefix(UserField field, String prefix) implements UserFilter {
+        public Prefix {
+            if (!field.isText()) {
+                throw new InvalidDataException("Prefix of " + field.getRequestName() + " is not supported");
+            }
+        }
+
+        @Override
+        public boolean test(User user) {
+            var actual = field.text(user);
+            if (actual == null) {
+                return false;
+            }
+            var trimmedPrefix = prefix.trim();
+            return actual.trim().regionMatches(true, 0, trimmedPrefix, 0, trimmedPrefix.length());
+        }
+
+        @Override
+        public String toString() {
+            return field.getRequestName() + ":" + quote(prefix) + "*";
+        }
+    }
+
+    /**
+     * Values strictly between {@code from} and {@code to}; {@code null} leaves that
+     * side open.
+     */
+    record Range(UserField field, Integer from, Integer to) implements UserFilter {
+        public Range {
+            if (field.isText()) {
+                throw new InvalidDataException("Range of " + field.getRequestName() + " is not supported");
+            }
+        }
+
+        @Override
+        public boolean test(User user) {
+            var actual = field.number(user);
+            return actual != null && (from == null || actual > from) && (to == null || actual < to);
+        }
+
+        @Override
+        public String toString() {
+            return field.getRequestName() + ":" + (from == null ? "" : field.formatNumber(from))
+                    + ".." + (to == null ? "" : field.formatNumber(to));
+        }
+    }
+
+    record And(List<UserFilter> filters) implements UserFilter {
+        @Override
+        public boolean test(User user) {
+            for (UserFilter filter : filters) {
+                if (!filter.test(user)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public List<UserFilter> conjuncts() {
+            return filters;
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(UserFilter::toString).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    record Or(List<UserFilter> filters) implements UserFilter {
+        @Override
+        public boolean test(User user) {
+            for (UserFilter filter : filters) {
+                if (filter.test(user)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(UserFilter::toString).collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+
+    private static String quote(String value) {
+        return UserFilterParser.isBare(value) ? value : "\"" + value + "\"";
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.testassignment.datafilters;
+
+import com.example.testassignment.exceptions.InvalidDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of the written form of {@link UserFilter}:
+ * <pre>
+ * or        := and ("OR" and)*
+ * and       := term (["AND"] term)*
+ * term      := "(" or ")" | field ":" value
+ * value     := text ["*"] | [from] ".." [to]
+ * </pre>
+ * {@code AND} binds tighter than {@code OR}; both are case-insensitive.
+ */
+final class UserFilterParser {
+    private static final int MAX_LENGTH = 2000;
+    private static final int MAX_DEPTH = 16;
+    private static final String RANGE = "..";
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    UserFilterParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Whether {@code value} can be written without quotes.
+     */
+    static boolean isBare(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!isBareChar(value.charAt(i)) || value.charAt(i) == '*') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    UserFilter parse() {
+        if (text.length() > MAX_LENGTH) {
+            throw new InvalidDataException("Filter is longer than " + MAX_LENGTH + " characters");
+        }
+        var filter = or();
+        skipSpaces();
+        if (position < text.length()) {
+            throw error("unexpected " + text.charAt(position));
+        }
+        return filter;
+    }
+
+    private UserFilter or() {
+        List<UserFilter> filters = new ArrayList<>();
+        filters.add(and());
+        while (keyword("OR")) {
+            filters.add(and());
+        }
+        return filters.size() == 1 ? filters.get(0) : new UserFilter.Or(filters);
+    }
+
+    private UserFilter and() {
+        List<UserFilter> filters = new ArrayList<>();
+        filters.add(term());
+        while (true) {
+            if (keyword("AND")) {
+                filters.add(term());
+                continue;
+            }
+            skipSpaces();
+            if (position == text.length() || text.charAt(position) == ')' || peekKeyword("OR")) {
+                return UserFilter.allOf(filters);
+            }
+            filters.add(term());
+        }
+    }
+
+    private UserFilter term() {
+        skipSpaces();
+        if (position < text.length() && text.charAt(position) == '(') {
+            if (++depth > MAX_DEPTH) {
+                throw error("more than " + MAX_DEPTH + " nested groups");
+            }
+            position++;
+            var filter = or();
+            skipSpaces();
+            if (position == text.length() || text.charAt(position) != ')') {
+                throw error("expected )");
+            }
+            position++;
+            depth--;
+            return filter;
+        }
+        return condition();
+    }
+
+    private UserFilter condition() {
+        var start = position;
+        while (position < text.length() && Character.isLetter(text.charAt(position))) {
+            position++;
+        }
+        if (start == position || position == text.length() || text.charAt(position) != ':') {
+            throw error("expected field:value");
+        }
+        var field = UserField.of(text.substring(start, position));
+        position++;
+        var quoted = position < text.length() && text.charAt(position) == '"';
+        var value = quoted ? quoted() : bare();
+        var prefix = false;
+        if (quoted && position < text.length() && text.charAt(position) == '*') {
+            position++;
+            prefix = true;
+        } else if (!quoted && value.endsWith("*")) {
+            value = value.substring(0, value.length() - 1);
+            prefix = true;
+        }
+        if (prefix) {
+            return new UserFilter.Prefix(field, value);
+        }
+        if (field.isText()) {
+            return new UserFilter.Equals(field, value);
+        }
+        var range = value.indexOf(RANGE);
+        if (range < 0) {
+            return new UserFilter.Equals(field, field.parseNumber(value));
+        }
+        var from = value.substring(0, range);
+        var to = value.substring(range + RANGE.length());
+        return new UserFilter.Range(field,
+                from.isEmpty() ? null : field.parseNumber(from),
+                to.isEmpty() ? null : field.parseNumber(to));
+    }
+
+    private String quoted() {
+        var end = text.indexOf('"', position + 1);
+        if (end < 0) {
+            throw error("unterminated quote");
+        }
+        var value = text.substring(position + 1, end);
+        position = end + 1;
+        return value;
+    }
+
+    private String bare() {
+        var start = position;
+        while (position < text.length() && isBareChar(text.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("expected a value");
+        }
+        return text.substring(start, position);
+    }
+
+    private boolean keyword(String keyword) {
+        skipSpaces();
+        if (!peekKeyword(keyword)) {
+            return false;
+        }
+        position += keyword.length();
+        return true;
+    }
+
+    private boolean peekKeyword(String keyword) {
+        var end = position + keyword.length();
+        return text.regionMatches(true, position, keyword, 0, keyword.length())
+                && end < text.length() && (Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '(');
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private InvalidDataException error(String problem) {
+        return new InvalidDataException("Invalid filter at " + position + ": " + problem);
+    }
+
+    private static boolean isBareChar(char c) {
+        return !Character.isWhitespace(c) && c != '(' && c != ')' && c != '"';
+    }
+}
@@ -10,4 +10,27 @@ import lombok.NoArgsConstructor;
 public class UserListFiltering {
     BirthdayRangeFiltering range;
     PaginationParams pagination;
+    AddressFiltering address;
+    /**
+     * Further conditions users have to match; they don't change the listing order.
+     */
+    UserFilter where;
+    /**
+     * Listing order instead of the default id (or birthday within a range) order;
+     * sorted listings are paged by offset only.
+     */
+    UserSort sort;
+
+    public UserListFiltering(BirthdayRangeFiltering range, PaginationParams pagination) {
+        this(range, pagination, null, null, null);
+    }
+
+    public UserListFiltering(BirthdayRangeFiltering range, PaginationParams pagination, AddressFiltering address) {
+        this(range, pagination, address, null, null);
+    }
+
+    public UserListFiltering(BirthdayRangeFiltering range, PaginationParams pagination, AddressFiltering address,
+                             UserFilter where) {
+        this(range, pagination, address, where, null);
+    }
 }
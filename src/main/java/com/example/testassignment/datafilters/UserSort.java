@@ -0,0 +1,54 @@
+package com.example.testassignment.datafilters;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+
+import java.util.Comparator;
+
+/**
+ * Order of a sorted user listing, written {@code field,asc} or {@code field,desc}
+ * in requests (ascending if the direction is left out). Text is compared ignoring
+ * case, users without a value for the field come first and ties are broken by id;
+ * descending reverses the whole order.
+ */
+public record UserSort(UserField field, boolean descending) {
+    private static final String SEPARATOR = ",";
+
+    public static UserSort parse(String text) {
+        var separator = text.indexOf(SEPARATOR);
+        var field = UserField.of((separator < 0 ? text : text.substring(0, separator)).trim());
+        if (separator < 0) {
+            return new UserSort(field, false);
+        }
+        var direction = text.substring(separator + 1).trim();
+        if (direction.equalsIgnoreCase("asc")) {
+            return new UserSort(field, false);
+        }
+        if (direction.equalsIgnoreCase("desc")) {
+            return new UserSort(field, true);
+        }
+        throw new InvalidDataException("Invalid sort direction " + direction);
+    }
+
+    /**
+     * Whether the repository keeps an index in this order, so a page of the listing
+     * only reads the users up to its end instead of sorting all of them.
+     */
+    public boolean isIndexed() {
+        return field == UserField.ID || field == UserField.LAST_NAME
+                || field == UserField.EMAIL || field == UserField.BIRTHDAY;
+    }
+
+    public Comparator<User> comparator() {
+        Comparator<User> order = field.isText()
+                ? Comparator.comparing(field::text, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                : Comparator.comparing(field::number, Comparator.nullsFirst(Comparator.naturalOrder()));
+        order = order.thenComparingInt(User::getId);
+        return descending ? order.reversed() : order;
+    }
+
+    @Override
+    public String toString() {
+        return field.getRequestName() + SEPARATOR + (descending ? "desc" : "asc");
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.testassignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchCreateResultDto {
+    private List<Integer> created;
+    private List<BatchItemErrorDto> errors;
+}
@@ -0,0 +1,13 @@
+package com.example.testassignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemErrorDto {
+    private int index;
+    private String message;
+}
@@ -0,0 +1,31 @@
+package com.example.testassignment.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * How a user listing was read and how much work that took: the chosen access
+ * path, the conditions checked on the users it returned, the order they were
+ * sorted in afterwards and the candidates the planner compared.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueryPlanDto {
+    private String access;
+    private String filter;
+    private String sort;
+    /**
+     * Users the access path was estimated to return, or {@code null} if it was
+     * the only candidate.
+     */
+    private Long estimatedRows;
+    private List<String> considered;
+    private long rowsExamined;
+    private long rowsReturned;
+}
@@ -0,0 +1,25 @@
+package com.example.testassignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Numbers of users in total and by group. Users without a birthday or a country
+ * are only counted in the total.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserCountsDto {
+    private long total;
+    private Map<Integer, Long> byBirthYear;
+    /**
+     * Keyed by age range in full years, such as {@code 18-27}; the oldest one may
+     * be open-ended, such as {@code 118+}.
+     */
+    private Map<String, Long> byAge;
+    private Map<String, Long> byCountry;
+}
@@ -1,6 +1,7 @@
 package com.example.testassignment.dto;
 
 import com.example.testassignment.entity.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,4 +13,10 @@ import java.util.List;
 @NoArgsConstructor
 public class UsersListDto {
     private List<User> data;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
+
+    public UsersListDto(List<User> data) {
+        this.data = data;
+    }
 }
@@ -1,17 +1,24 @@
 package com.example.testassignment.entity;
 
+import com.example.testassignment.helper.EpochDaySerializer;
+import com.example.testassignment.helper.EpochDays;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
-import java.util.Date;
-
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class User {
+    /**
+     * Expected version of a write that doesn't depend on the stored one.
+     */
+    public static final long ANY_VERSION = -1;
 
     private Integer id;
 
@@ -21,17 +28,35 @@ public class User {
 
     private String lastName;
 
-    private Date birthday;
+    /**
+     * Days since 1970-01-01, {@link EpochDays#NONE} when unknown.
+     */
+    @JsonSerialize(using = EpochDaySerializer.class)
+    @Builder.Default
+    private int birthday = EpochDays.NONE;
 
     private Address address;
 
     private String phoneNumber;
 
+    /**
+     * Set by the repository on every write of this user; sent as its ETag.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long version;
+
     public User(int id, String firstName, String lastName, String email) {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
+        // @Builder.Default moves the field initializer into the builder
+        this.birthday = EpochDays.NONE;
+    }
+
+    public boolean hasBirthday() {
+        return birthday != EpochDays.NONE;
     }
 
 }
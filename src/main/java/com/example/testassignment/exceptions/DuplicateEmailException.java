@@ -0,0 +1,11 @@
+package com.example.testassignment.exceptions;
+
+/**
+ * Another user already has the email of a created or updated user.
+ */
+public class DuplicateEmailException extends RuntimeException {
+
+    public DuplicateEmailException(String message) {
+        super(message);
+    }
+}
@@ -22,4 +22,18 @@ public class UserGlobalExceptionHandler {
         ErrorDto incorrectData = new ErrorDto(exception.getMessage());
         return new ResponseEntity<>(incorrectData, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorDto> versionConflictHandler(
+            VersionConflictException exception) {
+        ErrorDto incorrectData = new ErrorDto(exception.getMessage());
+        return new ResponseEntity<>(incorrectData, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorDto> duplicateEmailHandler(
+            DuplicateEmailException exception) {
+        ErrorDto incorrectData = new ErrorDto(exception.getMessage());
+        return new ResponseEntity<>(incorrectData, HttpStatus.CONFLICT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.example.testassignment.exceptions;
+
+/**
+ * The stored user no longer has the version a conditional write was based on.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
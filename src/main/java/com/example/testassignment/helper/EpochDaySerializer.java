@@ -0,0 +1,27 @@
+package com.example.testassignment.helper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes an {@link EpochDays} value as {@code yyyy-MM-dd}, or {@code null} for
+ * {@link EpochDays#NONE}.
+ */
+public class EpochDaySerializer extends StdSerializer<Integer> {
+
+    public EpochDaySerializer() {
+        super(Integer.class);
+    }
+
+    @Override
+    public void serialize(Integer epochDay, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (epochDay == EpochDays.NONE) {
+            generator.writeNull();
+        } else {
+            generator.writeString(EpochDays.format(epochDay));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.testassignment.helper;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Dates as primitive days since 1970-01-01, the only date representation used by
+ * validation, filtering and {@link com.example.testassignment.entity.User}.
+ * Parsing, formatting and age arithmetic work on the characters and ints directly,
+ * so apart from the formatted string nothing is allocated per call.
+ */
+public final class EpochDays {
+    public static final String FORMAT = "yyyy-MM-dd";
+
+    /**
+     * Marks a missing date. It lies before every parseable date, so an open lower
+     * bound and a missing birthday never match a range.
+     */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int DAYS_PER_ERA = 146097;
+
+    private static volatile Today today = Today.now();
+
+    private EpochDays() {
+    }
+
+    /**
+     * Parses a strict {@code yyyy-MM-dd} date, or returns {@link #NONE} when the
+     * text is {@code null}, malformed or not a calendar date.
+     */
+    public static int parse(CharSequence text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return NONE;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NONE;
+        }
+        return of(year, month, day);
+    }
+
+    public static int of(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * The date as a decimal {@code yyyyMMdd} int, which keeps date order and makes
+     * whole years a plain division: {@code (toYmd(today) - toYmd(birthday)) / 10000}
+     * is the age.
+     */
+    public static int toYmd(int epochDay) {
+        int days = epochDay + DAYS_0000_TO_1970;
+        int era = Math.floorDiv(days, DAYS_PER_ERA);
+        int dayOfEra = days - era * DAYS_PER_ERA;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    public static String format(int epochDay) {
+        int ymd = toYmd(epochDay);
+        var chars = new char[10];
+        write(chars, 0, ymd / 10000, 4);
+        chars[4] = '-';
+        write(chars, 5, ymd / 100 % 100, 2);
+        chars[7] = '-';
+        write(chars, 8, ymd % 100, 2);
+        return new String(chars);
+    }
+
+    /**
+     * Full years between the two dates.
+     */
+    public static int yearsBetween(int fromEpochDay, int toEpochDay) {
+        return (toYmd(toEpochDay) - toYmd(fromEpochDay)) / 10000;
+    }
+
+    /**
+     * The same date {@code years} earlier, or the last day of that month if the
+     * day doesn't exist then. Whoever was born on or before it is at least
+     * {@code years} old by {@link #yearsBetween(int, int)}.
+     */
+    public static int minusYears(int epochDay, int years) {
+        int ymd = toYmd(epochDay);
+        int year = ymd / 10000 - years;
+        int month = ymd / 100 % 100;
+        return of(year, month, Math.min(ymd % 100, lengthOfMonth(year, month)));
+    }
+
+    /**
+     * Today in the system time zone. It is computed once a day, the other calls
+     * only compare the clock against the next midnight.
+     */
+    public static int today() {
+        var current = today;
+        if (System.currentTimeMillis() >= current.nextMidnight()) {
+            current = Today.now();
+            today = current;
+        }
+        return current.epochDay();
+    }
+
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void write(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private record Today(int epochDay, long nextMidnight) {
+        static Today now() {
+            var zone = ZoneId.systemDefault();
+            var date = LocalDate.now(zone);
+            return new Today((int) date.toEpochDay(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.testassignment.helper;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UpdateAddressPayload;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+
+/**
+ * Payload to entity mapping as plain field copies. Addresses are copied so a
+ * stored user never shares an instance with a request body.
+ */
+public final class UserMapper {
+
+    private UserMapper() {
+    }
+
+    public static User toUser(UserPayload payload) {
+        var user = new User();
+        user.setEmail(payload.getEmail());
+        user.setFirstName(payload.getFirstName());
+        user.setLastName(payload.getLastName());
+        user.setBirthday(EpochDays.parse(payload.getBirthday()));
+        user.setAddress(copy(payload.getAddress()));
+        user.setPhoneNumber(payload.getPhoneNumber());
+        return user;
+    }
+
+    /**
+     * User holding exactly the fields of the update; absent fields stay unset.
+     */
+    public static User toUser(UpdateUserPayload payload) {
+        var user = new User();
+        user.setEmail(payload.getEmail());
+        user.setFirstName(payload.getFirstName());
+        user.setLastName(payload.getLastName());
+        user.setBirthday(EpochDays.parse(payload.getBirthday()));
+        user.setAddress(toAddress(payload.getAddress()));
+        user.setPhoneNumber(payload.getPhoneNumber());
+        return user;
+    }
+
+    /**
+     * Payload form of a stored user, e.g. to validate it after a patch.
+     */
+    public static UserPayload toPayload(User user) {
+        var payload = new UserPayload();
+        payload.setEmail(user.getEmail());
+        payload.setFirstName(user.getFirstName());
+        payload.setLastName(user.getLastName());
+        payload.setBirthday(user.hasBirthday() ? EpochDays.format(user.getBirthday()) : null);
+        payload.setAddress(copy(user.getAddress()));
+        payload.setPhoneNumber(user.getPhoneNumber());
+        return payload;
+    }
+
+    public static Address toAddress(UpdateAddressPayload payload) {
+        if (payload == null) {
+            return null;
+        }
+        return new Address(payload.getCountry(), payload.getCity(), payload.getStreet(),
+                payload.getHouseNumber() == null ? 0 : payload.getHouseNumber(),
+                payload.getZipCode() == null ? 0 : payload.getZipCode());
+    }
+
+    public static Address copy(Address address) {
+        if (address == null) {
+            return null;
+        }
+        return new Address(address.getCountry(), address.getCity(), address.getStreet(),
+                address.getHouseNumber(), address.getZipCode());
+    }
+}
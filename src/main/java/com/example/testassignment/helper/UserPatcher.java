@@ -1,29 +1,276 @@
 package com.example.testassignment.helper;
 
+import com.example.testassignment.entity.Address;
 import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.payload.UpdateAddressPayload;
 import com.example.testassignment.payload.UpdateUserPayload;
-import org.springframework.beans.BeanUtils;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
+/**
+ * Partial updates of a user: typed PATCH payloads, RFC 7386 merge patches and
+ * RFC 6902 JSON Patch documents. The JSON forms resolve their member names and
+ * pointers against accessor tables built once, and write straight into the user
+ * rather than through a serialized copy of it.
+ * <p>
+ * The user passed in is modified in place, so it must be a copy that owns its
+ * address, never an instance held by the repository.
+ */
 public class UserPatcher {
+    private static final String ADDRESS = "address";
+
+    private static final Map<String, Property<User>> USER_PROPERTIES = Map.of(
+            "id", new Property<>(user -> user.getId() == null ? NullNode.getInstance() : IntNode.valueOf(user.getId()),
+                    UserPatcher::rejectIdChange),
+            "email", new Property<>(user -> text(user.getEmail()),
+                    (user, value) -> user.setEmail(requiredText("email", value))),
+            "firstName", new Property<>(user -> text(user.getFirstName()),
+                    (user, value) -> user.setFirstName(requiredText("firstName", value))),
+            "lastName", new Property<>(user -> text(user.getLastName()),
+                    (user, value) -> user.setLastName(requiredText("lastName", value))),
+            "birthday", new Property<>(user -> user.hasBirthday()
+                    ? TextNode.valueOf(EpochDays.format(user.getBirthday()))
+                    : NullNode.getInstance(),
+                    (user, value) -> user.setBirthday(birthday(value))),
+            ADDRESS, new Property<>(user -> address(user.getAddress()),
+                    (user, value) -> user.setAddress(value.isNull() ? null : mergeAddress(new Address(), value))),
+            "phoneNumber", new Property<>(user -> text(user.getPhoneNumber()),
+                    (user, value) -> user.setPhoneNumber(optionalText("phoneNumber", value))));
+
+    private static final Map<String, Property<Address>> ADDRESS_PROPERTIES = Map.of(
+            "country", new Property<>(address -> text(address.getCountry()),
+                    (address, value) -> address.setCountry(optionalText("country", value))),
+            "city", new Property<>(address -> text(address.getCity()),
+                    (address, value) -> address.setCity(optionalText("city", value))),
+            "street", new Property<>(address -> text(address.getStreet()),
+                    (address, value) -> address.setStreet(optionalText("street", value))),
+            "houseNumber", new Property<>(address -> IntNode.valueOf(address.getHouseNumber()),
+                    (address, value) -> address.setHouseNumber(number("houseNumber", value))),
+            "zipCode", new Property<>(address -> IntNode.valueOf(address.getZipCode()),
+                    (address, value) -> address.setZipCode(number("zipCode", value))));
+
+    /**
+     * Copies the present (non-null) fields of the payload; a present address is
+     * merged field by field into the existing one.
+     */
     public static void apply(User existUser, UpdateUserPayload userUpdates) {
-        BeanUtils.copyProperties(userUpdates, existUser, getNullPropertyNames(userUpdates));
+        if (userUpdates.getEmail() != null) {
+            existUser.setEmail(userUpdates.getEmail());
+        }
+        if (userUpdates.getFirstName() != null) {
+            existUser.setFirstName(userUpdates.getFirstName());
+        }
+        if (userUpdates.getLastName() != null) {
+            existUser.setLastName(userUpdates.getLastName());
+        }
+        if (userUpdates.getBirthday() != null) {
+            existUser.setBirthday(EpochDays.parse(userUpdates.getBirthday()));
+        }
+        if (userUpdates.getAddress() != null) {
+            var address = existUser.getAddress() == null ? new Address() : existUser.getAddress();
+            existUser.setAddress(merge(address, userUpdates.getAddress()));
+        }
+        if (userUpdates.getPhoneNumber() != null) {
+            existUser.setPhoneNumber(userUpdates.getPhoneNumber());
+        }
     }
 
-    private static String[] getNullPropertyNames(Object source) {
-        final BeanWrapper src = new BeanWrapperImpl(source);
-        java.beans.PropertyDescriptor[] pds = src.getPropertyDescriptors();
-        List<String> emptyNames = new ArrayList<>();
-        for (java.beans.PropertyDescriptor pd : pds) {
-            Object srcValue = src.getPropertyValue(pd.getName());
-            if (srcValue == null) emptyNames.add(pd.getName());
+    /**
+     * Applies an RFC 7386 merge patch: members replace fields, {@code null}
+     * removes them and an {@code address} object is merged recursively.
+     */
+    public static void mergePatch(User user, JsonNode patch) {
+        if (!patch.isObject()) {
+            throw new InvalidDataException("merge patch should be a JSON object");
         }
-        String[] result = new String[emptyNames.size()];
-        return emptyNames.toArray(result);
+        patch.fields().forEachRemaining(member -> {
+            var value = member.getValue();
+            if (ADDRESS.equals(member.getKey()) && value.isObject() && user.getAddress() != null) {
+                user.setAddress(mergeAddress(user.getAddress(), value));
+            } else {
+                property(USER_PROPERTIES, member.getKey()).setter().accept(user, value);
+            }
+        });
+    }
+
+    /**
+     * Applies the operations of an RFC 6902 JSON Patch in order. Every field of a
+     * user always exists, so {@code add} and {@code replace} are the same and
+     * {@code remove} clears the field.
+     */
+    public static void jsonPatch(User user, JsonNode operations) {
+        if (!operations.isArray()) {
+            throw new InvalidDataException("JSON Patch should be an array of operations");
+        }
+        for (JsonNode operation : operations) {
+            var op = member(operation, "op");
+            var path = member(operation, "path");
+            switch (op) {
+                case "add", "replace" -> set(user, path, value(operation));
+                case "remove" -> set(user, path, NullNode.getInstance());
+                case "test" -> {
+                    if (!get(user, path).equals(value(operation))) {
+                        throw new InvalidDataException("test failed for " + path);
+                    }
+                }
+                case "copy" -> set(user, path, get(user, member(operation, "from")));
+                case "move" -> {
+                    var from = member(operation, "from");
+                    if (!from.equals(path)) {
+                        var value = get(user, from);
+                        set(user, from, NullNode.getInstance());
+                        set(user, path, value);
+                    }
+                }
+                default -> throw new InvalidDataException("Unsupported operation " + op);
+            }
+        }
+    }
+
+    private static JsonNode get(User user, String path) {
+        var segments = segments(path);
+        if (segments.length == 1) {
+            return property(USER_PROPERTIES, segments[0]).getter().apply(user);
+        }
+        return property(ADDRESS_PROPERTIES, segments[1]).getter().apply(existingAddress(user, path));
+    }
+
+    private static void set(User user, String path, JsonNode value) {
+        var segments = segments(path);
+        if (segments.length == 1) {
+            property(USER_PROPERTIES, segments[0]).setter().accept(user, value);
+        } else {
+            property(ADDRESS_PROPERTIES, segments[1]).setter().accept(existingAddress(user, path), value);
+        }
+    }
+
+    private static String[] segments(String path) {
+        var segments = path.startsWith("/") ? path.substring(1).split("/", -1) : new String[0];
+        if (segments.length == 1 || segments.length == 2 && ADDRESS.equals(segments[0])) {
+            return segments;
+        }
+        throw new InvalidDataException("Unknown path " + path);
+    }
+
+    private static Address existingAddress(User user, String path) {
+        if (user.getAddress() == null) {
+            throw new InvalidDataException("Unknown path " + path);
+        }
+        return user.getAddress();
+    }
+
+    private static <T> Property<T> property(Map<String, Property<T>> properties, String name) {
+        var property = properties.get(name);
+        if (property == null) {
+            throw new InvalidDataException("Unknown field " + name);
+        }
+        return property;
+    }
+
+    private static Address mergeAddress(Address address, JsonNode patch) {
+        if (!patch.isObject()) {
+            throw new InvalidDataException("address should be an object");
+        }
+        patch.fields().forEachRemaining(member ->
+                property(ADDRESS_PROPERTIES, member.getKey()).setter().accept(address, member.getValue()));
+        return address;
+    }
+
+    private static Address merge(Address address, UpdateAddressPayload updates) {
+        if (updates.getCountry() != null) {
+            address.setCountry(updates.getCountry());
+        }
+        if (updates.getCity() != null) {
+            address.setCity(updates.getCity());
+        }
+        if (updates.getStreet() != null) {
+            address.setStreet(updates.getStreet());
+        }
+        if (updates.getHouseNumber() != null) {
+            address.setHouseNumber(updates.getHouseNumber());
+        }
+        if (updates.getZipCode() != null) {
+            address.setZipCode(updates.getZipCode());
+        }
+        return address;
+    }
+
+    private static String member(JsonNode operation, String name) {
+        var value = operation.get(name);
+        if (value == null || !value.isTextual()) {
+            throw new InvalidDataException("operation " + name + " is required");
+        }
+        return value.textValue();
+    }
+
+    private static JsonNode value(JsonNode operation) {
+        var value = operation.get("value");
+        if (value == null) {
+            throw new InvalidDataException("operation value is required");
+        }
+        return value;
+    }
+
+    private static void rejectIdChange(User user, JsonNode value) {
+        throw new InvalidDataException("id can't be changed");
+    }
+
+    private static JsonNode text(String value) {
+        return value == null ? NullNode.getInstance() : TextNode.valueOf(value);
+    }
+
+    private static JsonNode address(Address address) {
+        if (address == null) {
+            return NullNode.getInstance();
+        }
+        var node = JsonNodeFactory.instance.objectNode();
+        ADDRESS_PROPERTIES.forEach((name, property) -> node.set(name, property.getter().apply(address)));
+        return node;
     }
-}
 
+    private static String requiredText(String name, JsonNode value) {
+        if (value.isNull()) {
+            throw new InvalidDataException(name + " is required");
+        }
+        return optionalText(name, value);
+    }
+
+    private static String optionalText(String name, JsonNode value) {
+        if (value.isNull()) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new InvalidDataException(name + " should be a string");
+        }
+        return value.textValue();
+    }
+
+    private static int birthday(JsonNode value) {
+        var birthday = EpochDays.parse(requiredText("birthday", value));
+        if (birthday == EpochDays.NONE) {
+            throw new InvalidDataException("birthday format should be " + EpochDays.FORMAT);
+        }
+        return birthday;
+    }
+
+    private static int number(String name, JsonNode value) {
+        if (value.isNull()) {
+            return 0;
+        }
+        if (!value.canConvertToInt() || !value.isIntegralNumber()) {
+            throw new InvalidDataException(name + " should be a number");
+        }
+        return value.intValue();
+    }
+
+    private record Property<T>(Function<T, JsonNode> getter, BiConsumer<T, JsonNode> setter) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.testassignment.metrics;
+
+import com.example.testassignment.repositories.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@code UserService}, {@code UserRepository} and
+ * {@code BirthdayValidator} call and records the size of returned user lists.
+ * Only registered with {@code user.metrics.enabled=true}; otherwise the beans are
+ * not proxied at all and the hot path is untouched.
+ * <p>
+ * Repository methods returning a stream are timed until the stream is created,
+ * not until it is consumed. The repository is looked up lazily so that resolving
+ * it while advisors are built does not leave it unproxied.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "user.metrics.enabled", havingValue = "true")
+public class UserMetricsAspect {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final DistributionSummary listSizes;
+
+    public UserMetricsAspect(MeterRegistry meterRegistry, ObjectProvider<UserRepository> userRepository) {
+        this.meterRegistry = meterRegistry;
+        this.listSizes = DistributionSummary.builder("user.list.size")
+                .description("Users returned by one list call")
+                .register(meterRegistry);
+        Gauge.builder("user.repository.size", userRepository, repository -> repository.getObject().count())
+                .description("Users currently stored")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(* com.example.testassignment.servise.UserService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        var result = time("user.service", joinPoint);
+        if (result instanceof Collection<?> users) {
+            listSizes.record(users.size());
+        }
+        return result;
+    }
+
+    @Around("execution(* com.example.testassignment.repositories.UserRepository.*(..))"
+            + " && !execution(* com.example.testassignment.repositories.UserRepository.count())")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("user.repository", joinPoint);
+    }
+
+    @Around("execution(public * com.example.testassignment.validation.BirthdayValidator.*(..))")
+    public Object timeValidation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("user.validation", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        var method = joinPoint.getSignature().getName();
+        var start = System.nanoTime();
+        try {
+            var result = joinPoint.proceed();
+            timers.computeIfAbsent(name + '#' + method, key -> Timer.builder(name)
+                            .tag("method", method)
+                            .tag("exception", "none")
+                            .register(meterRegistry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            Timer.builder(name)
+                    .tag("method", method)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.testassignment.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Address part of a partial update; {@code null} fields keep their stored value.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UpdateAddressPayload {
+    private String country;
+    private String city;
+    private String street;
+    private Integer houseNumber;
+    private Integer zipCode;
+}
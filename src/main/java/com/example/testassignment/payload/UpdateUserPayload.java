@@ -1,6 +1,5 @@
 package com.example.testassignment.payload;
 
-import com.example.testassignment.entity.Address;
 import com.example.testassignment.validation.NotEmptyOrNull;
 import com.example.testassignment.validation.Phone;
 import jakarta.validation.constraints.Email;
@@ -20,7 +19,7 @@ public class UpdateUserPayload {
     private String lastName;
     @NotEmptyOrNull(message = "birthday can't be blank")
     private String birthday;
-    private Address address;
+    private UpdateAddressPayload address;
     @Phone
     private String phoneNumber;
 }
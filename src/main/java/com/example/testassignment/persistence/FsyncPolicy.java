@@ -0,0 +1,21 @@
+package com.example.testassignment.persistence;
+
+/**
+ * When appended log records are forced to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every write waits until its record is on disk; concurrent writers share one
+     * fsync (group commit).
+     */
+    ALWAYS,
+    /**
+     * Records are forced in the background every {@code user.persistence.fsync-interval};
+     * a crash loses at most that window.
+     */
+    INTERVAL,
+    /**
+     * Flushing is left to the operating system.
+     */
+    OS
+}
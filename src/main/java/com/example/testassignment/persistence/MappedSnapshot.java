@@ -0,0 +1,219 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.repositories.UserSource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot file that is opened with {@link FileChannel#map} instead of being read.
+ * <pre>
+ * header: magic, version, first log segment to replay
+ * records: users encoded with {@link UserRecordCodec}
+ * table:  (id, record offset) pairs sorted by id
+ * footer: table offset, user count, magic
+ * </pre>
+ * Opening only reads the header and the footer; a user is decoded when it is
+ * looked up, through a binary search over the mapped id table. The file is written
+ * under a temporary name, forced to disk and moved into place, and the move is
+ * forced too before it returns, so neither a reader nor a crash ever sees anything
+ * but a complete snapshot, and the log segments it covers can be deleted after.
+ * A single mapping limits the file to 2 GB.
+ */
+final class MappedSnapshot implements UserSource {
+    private static final int MAGIC = 0x55534e50;
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES * 2;
+    private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final long firstSegment;
+    private final int tableOffset;
+    private final int count;
+
+    private MappedSnapshot(MappedByteBuffer buffer, long firstSegment, int tableOffset, int count) {
+        this.buffer = buffer;
+        this.firstSegment = firstSegment;
+        this.tableOffset = tableOffset;
+        this.count = count;
+    }
+
+    static Optional<MappedSnapshot> open(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size > Integer.MAX_VALUE || size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Unsupported snapshot " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            var footer = (int) size - FOOTER_SIZE;
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION
+                    || buffer.getInt(footer + Long.BYTES + Integer.BYTES) != MAGIC) {
+                throw new IOException("Unsupported snapshot " + path);
+            }
+            return Optional.of(new MappedSnapshot(buffer,
+                    buffer.getLong(Integer.BYTES * 2),
+                    (int) buffer.getLong(footer),
+                    buffer.getInt(footer + Long.BYTES)));
+        }
+    }
+
+    static void write(Path path, long firstSegment, Iterator<User> users) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] ids = new int[1024];
+        long[] offsets = new long[1024];
+        int count = 0;
+        boolean sorted = true;
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(firstSegment);
+            while (users.hasNext()) {
+                var user = users.next();
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                sorted &= count == 0 || ids[count - 1] < user.getId();
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot exceeds 2 GB");
+                }
+                ids[count] = user.getId();
+                offsets[count] = out.size();
+                count++;
+                UserRecordCodec.write(out, user);
+            }
+            var tableOffset = out.size();
+            var byId = ids;
+            var order = IntStream.range(0, count);
+            if (!sorted) {
+                order = order.boxed()
+                        .sorted((a, b) -> Integer.compare(byId[a], byId[b]))
+                        .mapToInt(Integer::intValue);
+            }
+            for (var index : order.toArray()) {
+                out.writeInt(ids[index]);
+                out.writeLong(offsets[index]);
+            }
+            out.writeLong(tableOffset);
+            out.writeInt(count);
+            out.writeInt(MAGIC);
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB");
+            }
+            out.flush();
+            // the contents have to be on disk before the name points at them
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes a rename in {@code directory} durable. Some platforms can't open a
+     * directory as a channel; the rename is then as durable as they make it.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    long firstSegment() {
+        return firstSegment;
+    }
+
+    @Override
+    public Optional<User> find(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = idAt(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return Optional.of(userAt(middle));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Stream<User> users() {
+        return IntStream.range(0, count).mapToObj(this::userAt);
+    }
+
+    @Override
+    public int maxId() {
+        return count == 0 ? 0 : idAt(count - 1);
+    }
+
+    private int idAt(int index) {
+        return buffer.getInt(tableOffset + index * ENTRY_SIZE);
+    }
+
+    private User userAt(int index) {
+        var offset = (int) buffer.getLong(tableOffset + index * ENTRY_SIZE + Integer.BYTES);
+        try {
+            return UserRecordCodec.read(new DataInputStream(new BufferInputStream(buffer.duplicate().position(offset))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt snapshot record " + offset, e);
+        }
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            var read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.repositories.UserChangeListener;
+import com.example.testassignment.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Durability for the user repository. Every write is appended to the
+ * {@link WriteAheadLog} from inside the repository write, snapshots are taken
+ * periodically and on shutdown. On startup the last {@link MappedSnapshot} is
+ * handed to the repository, which can serve from it lazily, and the log written
+ * after it is replayed before the application accepts requests. A failed append
+ * aborts the write, so the journal is called before any other listener.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "user.persistence.enabled", havingValue = "true")
+public class UserJournal implements UserChangeListener, SmartInitializingSingleton, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserJournal.class);
+    private static final String SNAPSHOT_FILE = "users.snapshot";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final Duration snapshotInterval;
+    private final ObjectProvider<UserRepository> userRepository;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "user-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile WriteAheadLog log;
+    // set when the repository lacks users that only the snapshot on disk holds
+    private volatile RuntimeException loadFailure;
+
+    public UserJournal(@Value("${user.persistence.directory}") Path directory,
+                       @Value("${user.persistence.fsync}") FsyncPolicy fsyncPolicy,
+                       @Value("${user.persistence.fsync-interval}") Duration fsyncInterval,
+                       @Value("${user.persistence.snapshot-interval}") Duration snapshotInterval,
+                       ObjectProvider<UserRepository> userRepository) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.snapshotInterval = snapshotInterval;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        var repository = userRepository.getObject();
+        try {
+            Files.createDirectories(directory);
+            var snapshot = MappedSnapshot.open(directory.resolve(SNAPSHOT_FILE));
+            var firstSegment = snapshot.map(MappedSnapshot::firstSegment).orElse(0L);
+            snapshot.ifPresent(repository::load);
+            var lastSegment = WriteAheadLog.replay(directory, firstSegment, (operation, user) -> {
+                if (operation == WriteAheadLog.DELETE) {
+                    repository.find(user.getId()).ifPresent(repository::delete);
+                } else {
+                    repository.restore(user);
+                }
+            });
+            // from here on the repository writes go to the log
+            log = new WriteAheadLog(directory, fsyncPolicy, Math.max(firstSegment, lastSegment + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't load users from " + directory, e);
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            var period = fsyncInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(keepScheduled("sync the user log", () -> log.sync()),
+                    period, period, TimeUnit.MILLISECONDS);
+        }
+        var snapshotPeriod = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(keepScheduled("write the user snapshot", this::snapshot),
+                snapshotPeriod, snapshotPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onCreate(User user) {
+        append(WriteAheadLog.CREATE, user);
+    }
+
+    @Override
+    public void onUpdate(User previous, User current) {
+        append(WriteAheadLog.UPDATE, current);
+    }
+
+    @Override
+    public void onDelete(User user) {
+        append(WriteAheadLog.DELETE, user);
+    }
+
+    @Override
+    public void onLoad(User user) {
+        // comes from the snapshot, nothing to log
+    }
+
+    @Override
+    public void onLoadFailed(RuntimeException failure) {
+        loadFailure = failure;
+    }
+
+    /**
+     * Writes a snapshot of the repository and drops the log segments it covers.
+     * The log is rotated while writes are paused, so every write appended to an
+     * older segment is visible to the snapshot. Writes that run concurrently land
+     * in the new segment and are replayed over the snapshot, which is safe because
+     * every record carries the full user. Nothing is written after the last
+     * snapshot failed to load, which keeps it and the log segments it needs.
+     */
+    public void snapshot() {
+        if (loadFailure != null) {
+            LOGGER.warn("Not writing the user snapshot, the last one didn't load completely");
+            return;
+        }
+        snapshotLock.lock();
+        try {
+            var repository = userRepository.getObject();
+            var firstSegment = rotateWhileWritesPaused(repository);
+            try (Stream<User> users = repository.findAfter(0)) {
+                MappedSnapshot.write(directory.resolve(SNAPSHOT_FILE), firstSegment, users.iterator());
+            }
+            log.deleteSegmentsBefore(firstSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't write the user snapshot", e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        scheduler.shutdownNow();
+        if (log != null) {
+            snapshot();
+            log.close();
+        }
+    }
+
+    private long rotateWhileWritesPaused(UserRepository repository) throws IOException {
+        var firstSegment = new long[1];
+        try {
+            repository.whileWritesPaused(() -> {
+                try {
+                    firstSegment[0] = log.rotate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return firstSegment[0];
+    }
+
+    /**
+     * A periodic task that logs its failures instead of throwing them, since the
+     * scheduler cancels a task for good once it throws. The next run retries.
+     */
+    private static Runnable keepScheduled(String action, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Can't {}, retrying on the next run", action, e);
+            }
+        };
+    }
+
+    private void append(byte operation, User user) {
+        // null while the startup replay restores users
+        var current = log;
+        if (current != null) {
+            current.append(operation, user);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary form of a {@link User} shared by the log and the snapshots.
+ */
+final class UserRecordCodec {
+
+    private UserRecordCodec() {
+    }
+
+    static void write(DataOutput out, User user) throws IOException {
+        out.writeInt(user.getId());
+        out.writeLong(user.getVersion());
+        writeString(out, user.getEmail());
+        writeString(out, user.getFirstName());
+        writeString(out, user.getLastName());
+        out.writeInt(user.getBirthday());
+        var address = user.getAddress();
+        out.writeBoolean(address != null);
+        if (address != null) {
+            writeString(out, address.getCountry());
+            writeString(out, address.getCity());
+            writeString(out, address.getStreet());
+            out.writeInt(address.getHouseNumber());
+            out.writeInt(address.getZipCode());
+        }
+        writeString(out, user.getPhoneNumber());
+    }
+
+    static User read(DataInput in) throws IOException {
+        var user = new User();
+        user.setId(in.readInt());
+        user.setVersion(in.readLong());
+        user.setEmail(readString(in));
+        user.setFirstName(readString(in));
+        user.setLastName(readString(in));
+        user.setBirthday(in.readInt());
+        if (in.readBoolean()) {
+            user.setAddress(new Address(readString(in), readString(in), readString(in),
+                    in.readInt(), in.readInt()));
+        }
+        user.setPhoneNumber(readString(in));
+        return user;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of user writes split into numbered segment files. Every record is
+ * {@code [length][crc32][operation][user]}; replay stops at the first truncated or
+ * corrupt record of a segment, which is what a crash in the middle of an append
+ * leaves behind. A new segment is started on every open and on {@link #rotate()},
+ * so existing files are never appended to. With {@link FsyncPolicy#ALWAYS} a failed
+ * sync cuts the records appended since the last one back out of the segment and
+ * fails their appends, so replay never brings back a write that was aborted.
+ */
+class WriteAheadLog implements Closeable {
+    static final byte CREATE = 1;
+    static final byte UPDATE = 2;
+    static final byte DELETE = 3;
+
+    private static final String SEGMENT_PREFIX = "users-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    // lock order: syncLock before appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    // first to last sequence of the appends cut out after a failed sync, guarded by syncLock
+    private final TreeMap<Long, Long> discarded = new TreeMap<>();
+    private FileChannel channel;
+    private long segment;
+    private long appended;
+    // set when unsynced records couldn't be cut out, guarded by appendLock
+    private IOException broken;
+    // end of the synced part of the log, written under appendLock
+    private long durableSegment;
+    private long durablePosition;
+    private volatile long durable;
+    private volatile long lastDiscarded;
+
+    WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long segment) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.segment = segment;
+        this.channel = open(segment);
+        this.durableSegment = segment;
+    }
+
+    void append(byte operation, User user) {
+        var record = encode(operation, user);
+        long sequence;
+        appendLock.lock();
+        try {
+            if (broken != null) {
+                throw new IOException("The user log holds records of aborted writes", broken);
+            }
+            var start = channel.position();
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                discardFrom(start, e);
+                throw e;
+            }
+            sequence = ++appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't append to the user log", e);
+        } finally {
+            appendLock.unlock();
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    void sync() {
+        long target;
+        appendLock.lock();
+        try {
+            target = appended;
+        } finally {
+            appendLock.unlock();
+        }
+        awaitDurable(target);
+    }
+
+    /**
+     * Closes the current segment and continues in a new one.
+     *
+     * @return number of the new segment; every earlier segment is complete
+     */
+    long rotate() throws IOException {
+        syncLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                channel.force(false);
+                channel.close();
+                durable = appended;
+                channel = open(++segment);
+                durableSegment = segment;
+                durablePosition = 0;
+                return segment;
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (var segmentNumber : segments(directory)) {
+            if (segmentNumber < firstKept) {
+                Files.deleteIfExists(segmentPath(directory, segmentNumber));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                if (channel.isOpen()) {
+                    channel.force(false);
+                    channel.close();
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Feeds every complete record of the segments numbered {@code fromSegment} and
+     * above to {@code consumer}, in write order.
+     *
+     * @return the highest segment number found, or {@code fromSegment - 1} if none
+     */
+    static long replay(Path directory, long fromSegment, BiConsumer<Byte, User> consumer) throws IOException {
+        long last = fromSegment - 1;
+        for (var segmentNumber : segments(directory)) {
+            if (segmentNumber < fromSegment) {
+                continue;
+            }
+            replaySegment(segmentPath(directory, segmentNumber), consumer);
+            last = segmentNumber;
+        }
+        return last;
+    }
+
+    private static void replaySegment(Path path, BiConsumer<Byte, User> consumer) throws IOException {
+        try (var in = new DataInputStream(Files.newInputStream(path))) {
+            while (true) {
+                int length;
+                int crc;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    crc = in.readInt();
+                    if (length <= 0) {
+                        return;
+                    }
+                    payload = in.readNBytes(length);
+                } catch (EOFException e) {
+                    return;
+                }
+                if (payload.length < length || checksum(payload) != crc) {
+                    return;
+                }
+                var record = new DataInputStream(new ByteArrayInputStream(payload));
+                var operation = record.readByte();
+                consumer.accept(operation, UserRecordCodec.read(record));
+            }
+        }
+    }
+
+    private static List<Long> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Drops the partial record of a failed append, so that replay doesn't stop
+     * short of the records appended after it. If the segment can't be cut back, it
+     * is forced and the log continues in a new one as on {@link #rotate()}; replay
+     * then only loses the torn record's segment tail, which holds nothing that was
+     * acknowledged. If that fails too, the log takes no more appends.
+     */
+    private void discardFrom(long position, IOException failure) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+            return;
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+        try {
+            channel.force(false);
+            durable = appended;
+            channel.close();
+            channel = open(++segment);
+            durableSegment = segment;
+            durablePosition = 0;
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+            broken = failure;
+        }
+    }
+
+    /**
+     * Cuts every record appended since the last sync out of the segment after a
+     * failed sync, as none of these appends is acknowledged and the writes are
+     * aborted; the appends still waiting fail too. If the records can't be cut
+     * out, the log takes no more appends, so that none is acknowledged on top of
+     * records replay would bring back.
+     */
+    private void discardUnsynced(FileChannel current, long currentSegment, IOException failure) {
+        appendLock.lock();
+        try {
+            try {
+                if (current != channel || currentSegment != durableSegment) {
+                    throw new IOException("Unsynced records were left in an earlier segment");
+                }
+                channel.truncate(durablePosition);
+                channel.position(durablePosition);
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+                broken = failure;
+            }
+            discarded.put(durable + 1, appended);
+            lastDiscarded = appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // package-private so that tests can make writes fail
+    FileChannel open(long segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void awaitDurable(long sequence) {
+        if (durable >= sequence && sequence > lastDiscarded) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            var range = discarded.floorEntry(sequence);
+            if (range != null && range.getValue() >= sequence) {
+                throw new IOException("The record was cut out of the log after a failed sync");
+            }
+            if (durable >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            long currentSegment;
+            long position;
+            appendLock.lock();
+            try {
+                target = appended;
+                current = channel;
+                currentSegment = segment;
+                position = channel.position();
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                if (durable >= target) {
+                    // a failed append forced the segment and moved on to a new one meanwhile
+                    return;
+                }
+                if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                    discardUnsynced(current, currentSegment, e);
+                }
+                throw e;
+            }
+            appendLock.lock();
+            try {
+                if (current == channel && durable < target) {
+                    durable = target;
+                    durableSegment = currentSegment;
+                    durablePosition = position;
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't sync the user log", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private static ByteBuffer encode(byte operation, User user) {
+        var bytes = new ByteArrayOutputStream(128);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(operation);
+            UserRecordCodec.write(out, user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var payload = bytes.toByteArray();
+        return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+    }
+
+    private static int checksum(byte[] payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Bitmap index of user ids by address country, city and zip code. These have few
+ * distinct values, so each value keeps a compressed {@link RoaringBitmap} of the
+ * ids living there and a filter on several of them is a bitmap intersection that
+ * touches no user. Bitmaps aren't thread-safe, so each one has its own lock: a
+ * change flips its few bits under the locks of the values it touches, and writes
+ * to different values don't wait for each other. A query reads one bitmap at a
+ * time into a private result, so a user moving meanwhile can be missed like with
+ * the other indexes, but every user found is checked against the filter again.
+ */
+class AddressIndex {
+    /**
+     * With a birthday range, up to this many matching users are looked up and
+     * sorted by birthday; more of them filter a scan of the birthday index instead.
+     */
+    static final int SORT_LIMIT = 4096;
+    private static final Comparator<User> BY_BIRTHDAY = Comparator.comparingInt(User::getBirthday)
+            .thenComparingInt(User::getId);
+
+    private final ConcurrentHashMap<String, Bitmap> byCountry = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Bitmap> byCity = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Bitmap> byZipCode = new ConcurrentHashMap<>();
+
+    void add(User user) {
+        var address = user.getAddress();
+        if (address == null) {
+            return;
+        }
+        set(byCountry, normalize(address.getCountry()), user.getId());
+        set(byCity, normalize(address.getCity()), user.getId());
+        set(byZipCode, address.getZipCode(), user.getId());
+    }
+
+    void remove(User user) {
+        var address = user.getAddress();
+        if (address == null) {
+            return;
+        }
+        clear(byCountry, normalize(address.getCountry()), user.getId());
+        clear(byCity, normalize(address.getCity()), user.getId());
+        clear(byZipCode, address.getZipCode(), user.getId());
+    }
+
+    void replace(User oldUser, User newUser) {
+        if (sameValues(oldUser.getAddress(), newUser.getAddress())) {
+            return;
+        }
+        remove(oldUser);
+        add(newUser);
+    }
+
+    /**
+     * Users with an id greater than {@code afterId} matching {@code filter}, in id
+     * order, looked up with {@code users}.
+     */
+    Stream<User> find(AddressFiltering filter, int afterId, IntFunction<User> users) {
+        var ids = ids(filter);
+        ids.remove(0L, afterId + 1L);
+        return ids.stream()
+                .mapToObj(users)
+                .filter(user -> user != null && matches(user, filter));
+    }
+
+    /**
+     * Users matching {@code filter} that {@code birthdayRange} returns, in its
+     * birthday order. The range has to be the one of {@code from}, {@code to},
+     * {@code afterBirthday} and {@code afterId} as for
+     * {@link UserRepository#findByBirthdayRange(int, int, int, int)}; it is only
+     * scanned when too many users match for looking them up.
+     */
+    Stream<User> find(AddressFiltering filter, int from, int to, int afterBirthday, int afterId,
+                      IntFunction<User> users, Supplier<Stream<User>> birthdayRange) {
+        var ids = ids(filter);
+        if (ids.getCardinality() > SORT_LIMIT) {
+            return birthdayRange.get().filter(user -> ids.contains(user.getId()) && matches(user, filter));
+        }
+        return ids.stream()
+                .mapToObj(users)
+                .filter(user -> user != null && matches(user, filter) && user.hasBirthday())
+                .filter(user -> from == EpochDays.NONE || user.getBirthday() > from)
+                .filter(user -> to == EpochDays.NONE || user.getBirthday() < to)
+                .filter(user -> afterBirthday == EpochDays.NONE || user.getBirthday() > afterBirthday ||
+                        (user.getBirthday() == afterBirthday && user.getId() > afterId))
+                .sorted(BY_BIRTHDAY);
+    }
+
+    /**
+     * Number of users matching {@code filter}, the cardinality of the bitmap
+     * intersection.
+     */
+    int count(AddressFiltering filter) {
+        return ids(filter).getCardinality();
+    }
+
+    static boolean matches(User user, AddressFiltering filter) {
+        var address = user.getAddress();
+        if (address == null) {
+            return !filter.hasValues();
+        }
+        return (filter.getCountry() == null || normalize(filter.getCountry()).equals(normalize(address.getCountry())))
+                && (filter.getCity() == null || normalize(filter.getCity()).equals(normalize(address.getCity())))
+                && (filter.getZipCode() == null || filter.getZipCode() == address.getZipCode());
+    }
+
+    /**
+     * Private intersection of the bitmaps of the values set in {@code filter},
+     * smallest first.
+     */
+    private RoaringBitmap ids(AddressFiltering filter) {
+        List<Bitmap> bitmaps = new ArrayList<>(3);
+        if (filter.getCountry() != null) {
+            bitmaps.add(byCountry.get(normalize(filter.getCountry())));
+        }
+        if (filter.getCity() != null) {
+            bitmaps.add(byCity.get(normalize(filter.getCity())));
+        }
+        if (filter.getZipCode() != null) {
+            bitmaps.add(byZipCode.get(filter.getZipCode()));
+        }
+        if (bitmaps.isEmpty() || bitmaps.contains(null)) {
+            return new RoaringBitmap();
+        }
+        bitmaps.sort(Comparator.comparingInt(Bitmap::cardinality));
+        var result = bitmaps.get(0).copy();
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+            bitmaps.get(i).andInto(result);
+        }
+        return result;
+    }
+
+    private static <K> void set(ConcurrentHashMap<K, Bitmap> bitmaps, K value, int id) {
+        if (value == null) {
+            return;
+        }
+        // a bitmap emptied and dropped meanwhile takes no more ids
+        while (!bitmaps.computeIfAbsent(value, key -> new Bitmap()).add(id)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static <K> void clear(ConcurrentHashMap<K, Bitmap> bitmaps, K value, int id) {
+        if (value == null) {
+            return;
+        }
+        var bitmap = bitmaps.get(value);
+        if (bitmap != null && bitmap.remove(id)) {
+            bitmaps.remove(value, bitmap);
+        }
+    }
+
+    private static boolean sameValues(Address oldAddress, Address newAddress) {
+        if (oldAddress == null || newAddress == null) {
+            return oldAddress == newAddress;
+        }
+        return Objects.equals(normalize(oldAddress.getCountry()), normalize(newAddress.getCountry()))
+                && Objects.equals(normalize(oldAddress.getCity()), normalize(newAddress.getCity()))
+                && oldAddress.getZipCode() == newAddress.getZipCode();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ids of the users having one value, guarded by its own lock. Once it is
+     * emptied it's dropped from its map and refuses new ids, so an id is never
+     * added to a bitmap that is no longer reachable.
+     */
+    private static class Bitmap {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final RoaringBitmap ids = new RoaringBitmap();
+        private boolean dropped;
+
+        /**
+         * @return false if the bitmap was dropped and the id has to go to a new one
+         */
+        boolean add(int id) {
+            lock.lock();
+            try {
+                if (dropped) {
+                    return false;
+                }
+                ids.add(id);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true if the bitmap is empty now and the caller has to drop it
+         */
+        boolean remove(int id) {
+            lock.lock();
+            try {
+                ids.remove(id);
+                dropped = ids.isEmpty();
+                return dropped;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int cardinality() {
+            lock.lock();
+            try {
+                return ids.getCardinality();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        RoaringBitmap copy() {
+            lock.lock();
+            try {
+                return ids.clone();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void andInto(RoaringBitmap result) {
+            lock.lock();
+            try {
+                result.and(ids);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Secondary index ordering users by birthday (ties broken by id), users without a
+ * birthday first under {@link EpochDays#NONE}. Callers keep it in sync while
+ * holding the per-id write slot of the primary store, so an entry is never added
+ * and removed concurrently for the same user. The users born in every
+ * {@link #BUCKET_DAYS} days are counted too, so the size of a range is estimated
+ * without walking it.
+ */
+class BirthdayIndex {
+    private static final int BUCKET_DAYS = 32;
+
+    private final ConcurrentSkipListMap<Key, User> users = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, LongAdder> counts = new ConcurrentSkipListMap<>();
+
+    void add(User user) {
+        if (users.put(Key.of(user), user) == null) {
+            count(user.getBirthday(), 1);
+        }
+    }
+
+    void remove(User user) {
+        if (users.remove(Key.of(user)) != null) {
+            count(user.getBirthday(), -1);
+        }
+    }
+
+    void replace(User oldUser, User newUser) {
+        var oldKey = Key.of(oldUser);
+        var newKey = Key.of(newUser);
+        if (!oldKey.equals(newKey)) {
+            remove(oldUser);
+            add(newUser);
+            return;
+        }
+        users.put(newKey, newUser);
+    }
+
+    /**
+     * Estimated number of users {@link #range(int, int)} returns: the counts of the
+     * buckets the range covers, the ones it covers in part prorated by its days.
+     */
+    long estimate(int from, int to) {
+        var first = from == EpochDays.NONE ? Integer.MIN_VALUE : from + 1L;
+        var last = to == EpochDays.NONE ? Integer.MAX_VALUE : to - 1L;
+        if (first > last) {
+            return 0;
+        }
+        double estimate = 0;
+        for (var bucket : counts.subMap(bucket(first), true, bucket(last), true).entrySet()) {
+            var start = (long) bucket.getKey() * BUCKET_DAYS;
+            var days = Math.min(start + BUCKET_DAYS - 1, last) - Math.max(start, first) + 1;
+            estimate += bucket.getValue().sum() * (double) days / BUCKET_DAYS;
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * All users in birthday order or its reverse, as a lazy view over the index.
+     */
+    Stream<User> sorted(boolean descending) {
+        return (descending ? users.descendingMap() : users).values().stream();
+    }
+
+    /**
+     * Users born strictly after {@code from} and strictly before {@code to}, in
+     * birthday order. A {@link EpochDays#NONE} bound leaves that side open. The stream is a
+     * lazy view over the index, so only the consumed entries are visited.
+     */
+    Stream<User> range(int from, int to) {
+        return range(from, to, EpochDays.NONE, 0);
+    }
+
+    /**
+     * Same as {@link #range(int, int)} but resumes right after the entry of the
+     * user {@code afterId} born at {@code afterBirthday}; the position is found by
+     * key, so it stays valid when that user is changed or removed meanwhile.
+     */
+    Stream<User> range(int from, int to, int afterBirthday, int afterId) {
+        // an open lower bound still skips the users without a birthday
+        var lower = new Key(from + 1L, Integer.MIN_VALUE);
+        if (afterBirthday != EpochDays.NONE) {
+            var next = Key.after(afterBirthday, afterId);
+            if (next.compareTo(lower) > 0) {
+                lower = next;
+            }
+        }
+        if (to == EpochDays.NONE) {
+            return users.tailMap(lower, true).values().stream();
+        }
+        var upper = new Key(to, Integer.MIN_VALUE);
+        if (lower.compareTo(upper) >= 0) {
+            return Stream.empty();
+        }
+        return users.subMap(lower, true, upper, false).values().stream();
+    }
+
+    private void count(int birthday, int delta) {
+        // users without a birthday are never in a range
+        if (birthday != EpochDays.NONE) {
+            counts.computeIfAbsent(bucket(birthday), bucket -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static int bucket(long epochDay) {
+        return (int) Math.floorDiv(epochDay, BUCKET_DAYS);
+    }
+
+    private record Key(long birthday, int id) implements Comparable<Key> {
+        static Key of(User user) {
+            return new Key(user.getBirthday(), user.getId());
+        }
+
+        static Key after(long birthday, int id) {
+            return id == Integer.MAX_VALUE
+                    ? new Key(birthday + 1, Integer.MIN_VALUE)
+                    : new Key(birthday, id + 1);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Long.compare(birthday, other.birthday);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+}
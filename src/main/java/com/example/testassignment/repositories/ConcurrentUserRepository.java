@@ -0,0 +1,427 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * User store with lock-free reads: O(1) lookups by id through a
+ * {@link ConcurrentHashMap}, id-ordered iteration through a
+ * {@link ConcurrentSkipListMap} and ids taken from an atomic sequence. Reads never
+ * block, except reads other than {@link #find(int)} while a
+ * {@link #load(UserSource)} is running. Writes for the same id are serialized by
+ * a striped {@link ReentrantLock}; unlike the hash map bin monitor it lets a
+ * virtual thread unmount while listeners do I/O.
+ */
+@Repository
+@ConditionalOnProperty(name = "user.repository.type", havingValue = "concurrent")
+public class ConcurrentUserRepository implements UserRepository {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentUserRepository.class);
+    private static final int WRITE_LOCK_STRIPES = 256;
+
+    private final ConcurrentHashMap<Integer, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, User> usersById = new ConcurrentSkipListMap<>();
+    private final BirthdayIndex birthdayIndex = new BirthdayIndex();
+    private final SortIndex lastNameOrder = new SortIndex(UserField.LAST_NAME);
+    private final SortIndex emailOrder = new SortIndex(UserField.EMAIL);
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final AddressIndex addressIndex = new AddressIndex();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
+    private final List<UserChangeListener> listeners;
+    // set while the users of a loaded source are still being copied in
+    private volatile UserSource source;
+    private volatile CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
+    private final Set<Integer> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    public ConcurrentUserRepository() {
+        this(List.of());
+    }
+
+    @Autowired
+    public ConcurrentUserRepository(List<UserChangeListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<User> getAll() {
+        loading.join();
+        return Collections.unmodifiableList(new ArrayList<>(usersById.values()));
+    }
+
+    @Override
+    public int count() {
+        loading.join();
+        return users.size();
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public Optional<User> find(int id) {
+        var user = users.get(id);
+        if (user == null && source != null) {
+            user = takeOver(id);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        loading.join();
+        var id = emailIndex.find(email);
+        return id == null ? Optional.empty() : find(id).filter(user -> EmailIndex.hasEmail(user, email));
+    }
+
+    @Override
+    public Stream<User> findAfter(int afterId) {
+        loading.join();
+        return usersById.tailMap(afterId, false).values().stream();
+    }
+
+    @Override
+    public Stream<User> search(String query, boolean fuzzy, int afterId) {
+        loading.join();
+        return textIndex.search(query, fuzzy, afterId);
+    }
+
+    @Override
+    public Stream<User> findByBirthdayRange(int from, int to) {
+        loading.join();
+        return birthdayIndex.range(from, to);
+    }
+
+    @Override
+    public Stream<User> findByBirthdayRange(int from, int to, int afterBirthday, int afterId) {
+        loading.join();
+        return birthdayIndex.range(from, to, afterBirthday, afterId);
+    }
+
+    @Override
+    public Stream<User> findByAddress(AddressFiltering address, int afterId) {
+        loading.join();
+        return addressIndex.find(address, afterId, usersById::get);
+    }
+
+    @Override
+    public Stream<User> findByAddress(AddressFiltering address, int from, int to, int afterBirthday, int afterId) {
+        loading.join();
+        return addressIndex.find(address, from, to, afterBirthday, afterId, usersById::get,
+                () -> birthdayIndex.range(from, to, afterBirthday, afterId));
+    }
+
+    @Override
+    public long estimateBirthdayRange(int from, int to) {
+        loading.join();
+        return birthdayIndex.estimate(from, to);
+    }
+
+    @Override
+    public long estimateByAddress(AddressFiltering address) {
+        loading.join();
+        return addressIndex.count(address);
+    }
+
+    @Override
+    public long estimateSearch(String query) {
+        loading.join();
+        return textIndex.estimate(query);
+    }
+
+    @Override
+    public Stream<User> findSorted(UserSort sort) {
+        loading.join();
+        var descending = sort.descending();
+        return switch (sort.field()) {
+            case ID -> (descending ? usersById.descendingMap() : usersById).values().stream();
+            case LAST_NAME -> lastNameOrder.sorted(descending);
+            case EMAIL -> emailOrder.sorted(descending);
+            case BIRTHDAY -> birthdayIndex.sorted(descending);
+            default -> throw new IllegalArgumentException("Sort " + sort + " is not indexed");
+        };
+    }
+
+    @Override
+    public void update(User user) {
+        update(user, User.ANY_VERSION);
+    }
+
+    @Override
+    public void update(User user, long expectedVersion) {
+        if (source != null) {
+            find(user.getId());
+        }
+        var id = user.getId();
+        var lock = writeLock(id);
+        lock.lock();
+        try {
+            var existing = users.get(id);
+            if (existing == null) {
+                throw new NoSuchUserException("User is not found");
+            }
+            if (expectedVersion != User.ANY_VERSION && existing.getVersion() != expectedVersion) {
+                throw new VersionConflictException("User was changed concurrently");
+            }
+            user.setVersion(existing.getVersion() + 1);
+            var emailChanged = EmailIndex.emailChanged(existing, user);
+            if (emailChanged) {
+                emailIndex.claim(user);
+            }
+            try {
+                listeners.forEach(listener -> listener.onUpdate(existing, user));
+            } catch (RuntimeException e) {
+                if (emailChanged) {
+                    emailIndex.release(user);
+                }
+                throw e;
+            }
+            usersById.put(id, user);
+            birthdayIndex.replace(existing, user);
+            lastNameOrder.replace(existing, user);
+            emailOrder.replace(existing, user);
+            textIndex.replace(existing, user);
+            addressIndex.replace(existing, user);
+            users.put(id, user);
+            if (emailChanged) {
+                emailIndex.release(existing);
+            }
+        } finally {
+            lock.unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void create(User user) {
+        user.setId(sequence.incrementAndGet());
+        user.setVersion(1);
+        emailIndex.claim(user);
+        insert(user);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public CreatedUsers createAll(List<User> newUsers) {
+        var id = sequence.getAndAdd(newUsers.size());
+        for (User user : newUsers) {
+            user.setId(++id);
+            user.setVersion(1);
+        }
+        List<User> created = new ArrayList<>(newUsers.size());
+        Map<Integer, RuntimeException> failures = new TreeMap<>();
+        for (int i = 0; i < newUsers.size(); i++) {
+            try {
+                emailIndex.claim(newUsers.get(i));
+                insert(newUsers.get(i));
+                created.add(newUsers.get(i));
+            } catch (RuntimeException e) {
+                failures.put(i, e);
+            }
+        }
+        if (!created.isEmpty()) {
+            version.incrementAndGet();
+        }
+        return new CreatedUsers(created, failures);
+    }
+
+    /**
+     * Stores {@code user}, whose email is claimed already, unless a listener
+     * aborts the write.
+     */
+    private void insert(User user) {
+        try {
+            store(user);
+        } catch (RuntimeException e) {
+            emailIndex.release(user);
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        if (source != null) {
+            find(user.getId());
+            deletedWhileLoading.add(user.getId());
+        }
+        var id = user.getId();
+        var lock = writeLock(id);
+        lock.lock();
+        try {
+            var existing = users.get(id);
+            if (existing == null) {
+                // nothing changed, so listings cached for this version stay valid
+                return;
+            }
+            listeners.forEach(listener -> listener.onDelete(existing));
+            usersById.remove(id);
+            birthdayIndex.remove(existing);
+            lastNameOrder.remove(existing);
+            emailOrder.remove(existing);
+            textIndex.remove(existing);
+            addressIndex.remove(existing);
+            emailIndex.release(existing);
+            users.remove(id);
+        } finally {
+            lock.unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void restore(User user) {
+        sequence.accumulateAndGet(user.getId(), Math::max);
+        store(user);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Copies the users of {@code source} in on a background thread. Only
+     * {@link #find(int)} is lazy: it decodes a user from the source until the copy
+     * has taken it over. Every other read (listings, counts, lookups by email)
+     * waits until all users are decoded onto the heap. Writes don't wait, so while
+     * the copy runs an email is only checked against the users copied in so far.
+     * If the copy fails, the users copied in so far stay and reads go on without
+     * the rest; listeners learn about it through
+     * {@link UserChangeListener#onLoadFailed(RuntimeException)}.
+     */
+    @Override
+    public void load(UserSource source) {
+        sequence.accumulateAndGet(source.maxId(), Math::max);
+        var copy = new CompletableFuture<Void>();
+        // reads must wait for the copy before find() starts serving the source
+        loading = copy;
+        this.source = source;
+        version.incrementAndGet();
+        var thread = new Thread(() -> copy(source, copy), "user-repository-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void copy(UserSource source, CompletableFuture<Void> copy) {
+        try (var loaded = source.users()) {
+            loaded.forEach(this::takeOver);
+        } catch (RuntimeException e) {
+            LOGGER.error("Can't load every user, going on with the ones loaded so far", e);
+            listeners.forEach(listener -> listener.onLoadFailed(e));
+        } finally {
+            this.source = null;
+            deletedWhileLoading.clear();
+            copy.complete(null);
+        }
+    }
+
+    private User takeOver(int id) {
+        var current = source;
+        if (current == null || deletedWhileLoading.contains(id)) {
+            return users.get(id);
+        }
+        return current.find(id)
+                .map(this::takeOver)
+                .orElse(null);
+    }
+
+    private User takeOver(User user) {
+        var id = user.getId();
+        var lock = writeLock(id);
+        lock.lock();
+        try {
+            var existing = users.get(id);
+            if (existing != null || deletedWhileLoading.contains(id)) {
+                return existing;
+            }
+            listeners.forEach(listener -> listener.onLoad(user));
+            usersById.put(id, user);
+            birthdayIndex.add(user);
+            lastNameOrder.add(user);
+            emailOrder.add(user);
+            textIndex.add(user);
+            addressIndex.add(user);
+            emailIndex.add(user);
+            users.put(id, user);
+            return user;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(User user) {
+        var id = user.getId();
+        var lock = writeLock(id);
+        lock.lock();
+        try {
+            var existing = users.get(id);
+            if (existing == null) {
+                listeners.forEach(listener -> listener.onCreate(user));
+            } else {
+                listeners.forEach(listener -> listener.onUpdate(existing, user));
+                birthdayIndex.remove(existing);
+                lastNameOrder.remove(existing);
+                emailOrder.remove(existing);
+                textIndex.remove(existing);
+                addressIndex.remove(existing);
+                emailIndex.release(existing);
+            }
+            usersById.put(id, user);
+            birthdayIndex.add(user);
+            lastNameOrder.add(user);
+            emailOrder.add(user);
+            textIndex.add(user);
+            addressIndex.add(user);
+            emailIndex.add(user);
+            users.put(id, user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void whileWritesPaused(Runnable action) {
+        int locked = 0;
+        try {
+            // in stripe order, the only one in which several are held
+            for (; locked < writeLocks.length; locked++) {
+                writeLocks[locked].lock();
+            }
+            action.run();
+        } finally {
+            while (locked > 0) {
+                writeLocks[--locked].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock writeLock(int id) {
+        return writeLocks[id & (WRITE_LOCK_STRIPES - 1)];
+    }
+}
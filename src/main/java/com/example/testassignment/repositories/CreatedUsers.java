@@ -0,0 +1,13 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of {@link UserRepository#createAll(List)}: the users stored, in list
+ * order, and why each of the others was not, by its index in the list.
+ */
+public record CreatedUsers(List<User> users, Map<Integer, RuntimeException> failures) {
+}
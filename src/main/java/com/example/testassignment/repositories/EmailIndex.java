@@ -0,0 +1,77 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.DuplicateEmailException;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unique index from normalized (trimmed, lower-cased) email to user id. A user
+ * claims its email before it is stored; the claim is a single
+ * {@link ConcurrentHashMap#putIfAbsent}, so of two concurrent writes with the same
+ * email exactly one wins without any lock wider than the map bin. Users without
+ * an email are not indexed.
+ */
+class EmailIndex {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Id of the user holding {@code email}, or {@code null}.
+     */
+    Integer find(String email) {
+        var key = normalize(email);
+        return key == null ? null : ids.get(key);
+    }
+
+    /**
+     * Reserves the email of {@code user} for its id.
+     *
+     * @throws DuplicateEmailException if another user holds it
+     */
+    void claim(User user) {
+        var key = normalize(user.getEmail());
+        if (key == null) {
+            return;
+        }
+        var holder = ids.putIfAbsent(key, user.getId());
+        if (holder != null && !holder.equals(user.getId())) {
+            throw new DuplicateEmailException("User with email " + user.getEmail() + " already exists");
+        }
+    }
+
+    /**
+     * Indexes the email of a user that is already stored, such as a restored one;
+     * an email held by another user keeps pointing to that user.
+     */
+    void add(User user) {
+        var key = normalize(user.getEmail());
+        if (key != null) {
+            ids.putIfAbsent(key, user.getId());
+        }
+    }
+
+    /**
+     * Drops the entry of {@code user}'s email if it still points to the user.
+     */
+    void release(User user) {
+        var key = normalize(user.getEmail());
+        if (key != null) {
+            ids.remove(key, user.getId());
+        }
+    }
+
+    static boolean emailChanged(User previous, User current) {
+        return !Objects.equals(normalize(previous.getEmail()), normalize(current.getEmail()));
+    }
+
+    static boolean hasEmail(User user, String email) {
+        var key = normalize(email);
+        return key != null && key.equals(normalize(user.getEmail()));
+    }
+}
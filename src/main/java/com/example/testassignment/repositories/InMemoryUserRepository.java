@@ -1,49 +1,310 @@
 package com.example.testassignment.repositories;
 
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.UserSort;
 import com.example.testassignment.entity.User;
 import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.EpochDays;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
+/**
+ * List-backed user store guarded by a read-write lock; a {@link java.util.concurrent.locks.Lock}
+ * rather than a monitor so listeners doing I/O under it don't pin virtual threads.
+ */
 @Repository
+@ConditionalOnProperty(name = "user.repository.type", havingValue = "in-memory", matchIfMissing = true)
 public class InMemoryUserRepository implements UserRepository {
-    private final List<User> userList = Collections.synchronizedList(new LinkedList<>());
+    private final List<User> userList = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<UserChangeListener> listeners;
+    private final AtomicLong version = new AtomicLong();
+    private final EmailIndex emailIndex = new EmailIndex();
+    // highest id ever stored, so the id of a deleted user isn't handed out again
+    private int lastId;
+
+    public InMemoryUserRepository() {
+        this(List.of());
+    }
+
+    @Autowired
+    public InMemoryUserRepository(List<UserChangeListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+    }
 
     @Override
     public List<User> getAll() {
-        return Collections.unmodifiableList(userList);
+        return Collections.unmodifiableList(snapshot());
+    }
+
+    @Override
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return userList.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long version() {
+        return version.get();
     }
 
     @Override
     public Optional<User> find(int id) {
-        return userList.stream()
-                .filter(user -> user.getId() == id)
-                .findFirst();
+        lock.readLock().lock();
+        try {
+            return userList.stream()
+                    .filter(user -> user.getId() == id)
+                    .findFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        var id = emailIndex.find(email);
+        return id == null ? Optional.empty() : find(id).filter(user -> EmailIndex.hasEmail(user, email));
+    }
+
+    @Override
+    public Stream<User> findAfter(int afterId) {
+        return snapshot().stream()
+                .filter(user -> user.getId() > afterId);
+    }
+
+    @Override
+    public Stream<User> search(String query, boolean fuzzy, int afterId) {
+        return snapshot().stream()
+                .filter(user -> user.getId() > afterId)
+                .filter(TextIndex.matcher(query, fuzzy))
+                .sorted(Comparator.comparingInt(User::getId));
+    }
+
+    @Override
+    public Stream<User> findByBirthdayRange(int from, int to) {
+        return snapshot().stream()
+                .filter(User::hasBirthday)
+                .filter(user -> from == EpochDays.NONE || user.getBirthday() > from)
+                .filter(user -> to == EpochDays.NONE || user.getBirthday() < to)
+                .sorted(Comparator.comparingInt(User::getBirthday).thenComparing(User::getId));
+    }
+
+    @Override
+    public Stream<User> findByBirthdayRange(int from, int to, int afterBirthday, int afterId) {
+        return findByBirthdayRange(from, to)
+                .filter(user -> user.getBirthday() > afterBirthday ||
+                        (user.getBirthday() == afterBirthday && user.getId() > afterId));
+    }
+
+    @Override
+    public Stream<User> findByAddress(AddressFiltering address, int afterId) {
+        return findAfter(afterId)
+                .filter(user -> AddressIndex.matches(user, address));
+    }
+
+    @Override
+    public Stream<User> findByAddress(AddressFiltering address, int from, int to, int afterBirthday, int afterId) {
+        return findByBirthdayRange(from, to, afterBirthday, afterId)
+                .filter(user -> AddressIndex.matches(user, address));
+    }
+
+    @Override
+    public Stream<User> findSorted(UserSort sort) {
+        if (!sort.isIndexed()) {
+            throw new IllegalArgumentException("Sort " + sort + " is not indexed");
+        }
+        return snapshot().stream()
+                .sorted(sort.comparator());
     }
 
     @Override
     public void update(User user) {
-        for (int i = 0; i < userList.size(); i++) {
-            if (userList.get(i).getId() == user.getId()) {
-                userList.set(i, user);
-                return;
+        update(user, User.ANY_VERSION);
+    }
+
+    @Override
+    public void update(User user, long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < userList.size(); i++) {
+                var existing = userList.get(i);
+                if (existing.getId().equals(user.getId())) {
+                    if (expectedVersion != User.ANY_VERSION && existing.getVersion() != expectedVersion) {
+                        throw new VersionConflictException("User was changed concurrently");
+                    }
+                    user.setVersion(existing.getVersion() + 1);
+                    var emailChanged = EmailIndex.emailChanged(existing, user);
+                    if (emailChanged) {
+                        emailIndex.claim(user);
+                    }
+                    try {
+                        listeners.forEach(listener -> listener.onUpdate(existing, user));
+                    } catch (RuntimeException e) {
+                        if (emailChanged) {
+                            emailIndex.release(user);
+                        }
+                        throw e;
+                    }
+                    userList.set(i, user);
+                    if (emailChanged) {
+                        emailIndex.release(existing);
+                    }
+                    version.incrementAndGet();
+                    return;
+                }
             }
+        } finally {
+            lock.writeLock().unlock();
         }
         throw new NoSuchUserException("User is not found");
     }
 
     @Override
     public void create(User user) {
-        user.setId(userList.stream()
-                .max(Comparator.comparingInt(User::getId))
-                .map(User::getId)
-                .orElse(0) + 1);
+        lock.writeLock().lock();
+        try {
+            user.setId(++lastId);
+            user.setVersion(1);
+            emailIndex.claim(user);
+            insert(user);
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CreatedUsers createAll(List<User> users) {
+        lock.writeLock().lock();
+        try {
+            for (User user : users) {
+                user.setId(++lastId);
+                user.setVersion(1);
+            }
+            List<User> created = new ArrayList<>(users.size());
+            Map<Integer, RuntimeException> failures = new TreeMap<>();
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    emailIndex.claim(users.get(i));
+                    insert(users.get(i));
+                    created.add(users.get(i));
+                } catch (RuntimeException e) {
+                    failures.put(i, e);
+                }
+            }
+            if (!created.isEmpty()) {
+                version.incrementAndGet();
+            }
+            return new CreatedUsers(created, failures);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds {@code user}, whose email is claimed already, unless a listener aborts
+     * the write.
+     */
+    private void insert(User user) {
+        try {
+            listeners.forEach(listener -> listener.onCreate(user));
+        } catch (RuntimeException e) {
+            emailIndex.release(user);
+            throw e;
+        }
         userList.add(user);
     }
 
     @Override
     public void delete(User user) {
-        userList.remove(user);
+        lock.writeLock().lock();
+        try {
+            var index = userList.indexOf(user);
+            if (index >= 0) {
+                var existing = userList.get(index);
+                listeners.forEach(listener -> listener.onDelete(existing));
+                userList.remove(index);
+                emailIndex.release(existing);
+                version.incrementAndGet();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void restore(User user) {
+        lock.writeLock().lock();
+        try {
+            lastId = Math.max(lastId, user.getId());
+            for (int i = 0; i < userList.size(); i++) {
+                var existing = userList.get(i);
+                if (existing.getId().equals(user.getId())) {
+                    listeners.forEach(listener -> listener.onUpdate(existing, user));
+                    userList.set(i, user);
+                    emailIndex.release(existing);
+                    emailIndex.add(user);
+                    version.incrementAndGet();
+                    return;
+                }
+            }
+            listeners.forEach(listener -> listener.onCreate(user));
+            userList.add(user);
+            emailIndex.add(user);
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void load(UserSource source) {
+        lock.writeLock().lock();
+        try {
+            lastId = Math.max(lastId, source.maxId());
+            Set<Integer> existingIds = new HashSet<>();
+            userList.forEach(user -> existingIds.add(user.getId()));
+            try (var users = source.users()) {
+                users.filter(user -> !existingIds.contains(user.getId()))
+                        .forEach(user -> {
+                            listeners.forEach(listener -> listener.onLoad(user));
+                            userList.add(user);
+                            emailIndex.add(user);
+                        });
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void whileWritesPaused(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<User> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(userList);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 }
@@ -0,0 +1,447 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * User store partitioned by id into {@code user.repository.shards} shards (0 for
+ * one per core), each with its own write lock, id map and birthday index, so
+ * writes to different shards don't contend. Reads are lock-free. Email
+ * uniqueness, search, address filters and sorting by last name or email span the
+ * shards, so the {@link EmailIndex}, {@link TextIndex}, {@link AddressIndex} and
+ * {@link SortIndex}es are shared by all of them.
+ * <p>
+ * Listings gather the shards' ordered results with a k-way merge. A listing that
+ * is consumed lazily (a page) pulls from the shards one user at a time; one that
+ * is traversed in bulk (the whole result) first scans all shards in parallel on
+ * the fork/join common pool and then merges the collected parts.
+ */
+@Repository
+@ConditionalOnProperty(name = "user.repository.type", havingValue = "sharded")
+public class ShardedUserRepository implements UserRepository {
+    private static final Comparator<User> BY_ID = Comparator.comparingInt(User::getId);
+    private static final Comparator<User> BY_BIRTHDAY = Comparator.comparingInt(User::getBirthday).thenComparing(BY_ID);
+
+    private final Shard[] shards;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final List<UserChangeListener> listeners;
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final AddressIndex addressIndex = new AddressIndex();
+    private final SortIndex lastNameOrder = new SortIndex(UserField.LAST_NAME);
+    private final SortIndex emailOrder = new SortIndex(UserField.EMAIL);
+
+    public ShardedUserRepository(int shardCount) {
+        this(shardCount, List.of());
+    }
+
+    @Autowired
+    public ShardedUserRepository(@Value("${user.repository.shards:0}") int shardCount,
+                                 List<UserChangeListener> listeners) {
+        var count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+        }
+        this.listeners = List.copyOf(listeners);
+    }
+
+    @Override
+    public List<User> getAll() {
+        return gather(shard -> shard.users.values().stream(), BY_ID).toList();
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.size;
+        }
+        return count;
+    }
+
+    @Override
+    public long version() {
+        return version.get();
+    }
+
+    @Override
+    public Optional<User> find(int id) {
+        return Optional.ofNullable(shard(id).users.get(id));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        var id = emailIndex.find(email);
+        return id == null ? Optional.empty() : find(id).filter(user -> EmailIndex.hasEmail(user, email));
+    }
+
+    @Override
+    public Stream<User> findAfter(int afterId) {
+        return gather(shard -> shard.users.tailMap(afterId, false).values().stream(), BY_ID);
+    }
+
+    @Override
+    public Stream<User> search(String query, boolean fuzzy, int afterId) {
+        return textIndex.search(query, fuzzy, afterId);
+    }
+
+    @Override
+    public Stream<User> findByBirthdayRange(int from, int to) {
+        return gather(shard -> shard.birthdayIndex.range(from, to), BY_BIRTHDAY);
+    }
+
+    @Override
+    public Stream<User> findByBirthdayRange(int from, int to, int afterBirthday, int afterId) {
+        return gather(shard -> shard.birthdayIndex.range(from, to, afterBirthday, afterId), BY_BIRTHDAY);
+    }
+
+    @Override
+    public long estimateBirthdayRange(int from, int to) {
+        return Arrays.stream(shards).mapToLong(shard -> shard.birthdayIndex.estimate(from, to)).sum();
+    }
+
+    @Override
+    public long estimateByAddress(AddressFiltering address) {
+        return addressIndex.count(address);
+    }
+
+    @Override
+    public long estimateSearch(String query) {
+        return textIndex.estimate(query);
+    }
+
+    @Override
+    public Stream<User> findByAddress(AddressFiltering address, int afterId) {
+        return addressIndex.find(address, afterId, id -> shard(id).users.get(id));
+    }
+
+    @Override
+    public Stream<User> findByAddress(AddressFiltering address, int from, int to, int afterBirthday, int afterId) {
+        return addressIndex.find(address, from, to, afterBirthday, afterId, id -> shard(id).users.get(id),
+                () -> findByBirthdayRange(from, to, afterBirthday, afterId));
+    }
+
+    @Override
+    public Stream<User> findSorted(UserSort sort) {
+        var descending = sort.descending();
+        return switch (sort.field()) {
+            case ID -> gather(shard -> (descending ? shard.users.descendingMap() : shard.users).values().stream(),
+                    descending ? BY_ID.reversed() : BY_ID);
+            case LAST_NAME -> lastNameOrder.sorted(descending);
+            case EMAIL -> emailOrder.sorted(descending);
+            case BIRTHDAY -> gather(shard -> shard.birthdayIndex.sorted(descending),
+                    descending ? BY_BIRTHDAY.reversed() : BY_BIRTHDAY);
+            default -> throw new IllegalArgumentException("Sort " + sort + " is not indexed");
+        };
+    }
+
+    @Override
+    public void update(User user) {
+        update(user, User.ANY_VERSION);
+    }
+
+    @Override
+    public void update(User user, long expectedVersion) {
+        var shard = shard(user.getId());
+        shard.writeLock.lock();
+        try {
+            var existing = shard.users.get(user.getId());
+            if (existing == null) {
+                throw new NoSuchUserException("User is not found");
+            }
+            if (expectedVersion != User.ANY_VERSION && existing.getVersion() != expectedVersion) {
+                throw new VersionConflictException("User was changed concurrently");
+            }
+            user.setVersion(existing.getVersion() + 1);
+            var emailChanged = EmailIndex.emailChanged(existing, user);
+            if (emailChanged) {
+                emailIndex.claim(user);
+            }
+            try {
+                listeners.forEach(listener -> listener.onUpdate(existing, user));
+            } catch (RuntimeException e) {
+                if (emailChanged) {
+                    emailIndex.release(user);
+                }
+                throw e;
+            }
+            shard.birthdayIndex.replace(existing, user);
+            textIndex.replace(existing, user);
+            addressIndex.replace(existing, user);
+            lastNameOrder.replace(existing, user);
+            emailOrder.replace(existing, user);
+            shard.users.put(user.getId(), user);
+            if (emailChanged) {
+                emailIndex.release(existing);
+            }
+        } finally {
+            shard.writeLock.unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void create(User user) {
+        user.setId(sequence.incrementAndGet());
+        user.setVersion(1);
+        emailIndex.claim(user);
+        insert(user);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public CreatedUsers createAll(List<User> users) {
+        var id = sequence.getAndAdd(users.size());
+        for (User user : users) {
+            user.setId(++id);
+            user.setVersion(1);
+        }
+        List<User> created = new ArrayList<>(users.size());
+        Map<Integer, RuntimeException> failures = new TreeMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                emailIndex.claim(users.get(i));
+                insert(users.get(i));
+                created.add(users.get(i));
+            } catch (RuntimeException e) {
+                failures.put(i, e);
+            }
+        }
+        if (!created.isEmpty()) {
+            version.incrementAndGet();
+        }
+        return new CreatedUsers(created, failures);
+    }
+
+    /**
+     * Stores {@code user}, whose email is claimed already, unless a listener
+     * aborts the write.
+     */
+    private void insert(User user) {
+        try {
+            store(user, false);
+        } catch (RuntimeException e) {
+            emailIndex.release(user);
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        var shard = shard(user.getId());
+        shard.writeLock.lock();
+        try {
+            var existing = shard.users.get(user.getId());
+            if (existing == null) {
+                // nothing changed, so listings cached for this version stay valid
+                return;
+            }
+            listeners.forEach(listener -> listener.onDelete(existing));
+            shard.birthdayIndex.remove(existing);
+            textIndex.remove(existing);
+            addressIndex.remove(existing);
+            lastNameOrder.remove(existing);
+            emailOrder.remove(existing);
+            emailIndex.release(existing);
+            shard.users.remove(user.getId());
+            shard.size--;
+        } finally {
+            shard.writeLock.unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void restore(User user) {
+        sequence.accumulateAndGet(user.getId(), Math::max);
+        store(user, false);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Copies the users of {@code source} in right away; unlike
+     * {@link ConcurrentUserRepository} there is no lazy take-over.
+     */
+    @Override
+    public void load(UserSource source) {
+        sequence.accumulateAndGet(source.maxId(), Math::max);
+        try (var users = source.users()) {
+            users.forEach(user -> store(user, true));
+        }
+        version.incrementAndGet();
+    }
+
+    private void store(User user, boolean loaded) {
+        var shard = shard(user.getId());
+        shard.writeLock.lock();
+        try {
+            var existing = shard.users.get(user.getId());
+            if (existing == null) {
+                listeners.forEach(listener -> {
+                    if (loaded) {
+                        listener.onLoad(user);
+                    } else {
+                        listener.onCreate(user);
+                    }
+                });
+                shard.size++;
+            } else if (loaded) {
+                return;
+            } else {
+                listeners.forEach(listener -> listener.onUpdate(existing, user));
+                shard.birthdayIndex.remove(existing);
+                textIndex.remove(existing);
+                addressIndex.remove(existing);
+                lastNameOrder.remove(existing);
+                emailOrder.remove(existing);
+                emailIndex.release(existing);
+            }
+            shard.birthdayIndex.add(user);
+            textIndex.add(user);
+            addressIndex.add(user);
+            lastNameOrder.add(user);
+            emailOrder.add(user);
+            emailIndex.add(user);
+            shard.users.put(user.getId(), user);
+        } finally {
+            shard.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void whileWritesPaused(Runnable action) {
+        int locked = 0;
+        try {
+            for (; locked < shards.length; locked++) {
+                shards[locked].writeLock.lock();
+            }
+            action.run();
+        } finally {
+            while (locked > 0) {
+                shards[--locked].writeLock.unlock();
+            }
+        }
+    }
+
+    private Shard shard(int id) {
+        return shards[Math.floorMod(id, shards.length)];
+    }
+
+    private Stream<User> gather(Function<Shard, Stream<User>> query, Comparator<User> order) {
+        return StreamSupport.stream(new MergingSpliterator(query, order), false);
+    }
+
+    private static final class Shard {
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final ConcurrentSkipListMap<Integer, User> users = new ConcurrentSkipListMap<>();
+        private final BirthdayIndex birthdayIndex = new BirthdayIndex();
+        // written under the write lock
+        private volatile int size;
+    }
+
+    /**
+     * Ordered merge of the per-shard results of {@code query}. Shards are only
+     * queried on the first traversal, so creating the stream is free.
+     */
+    private final class MergingSpliterator extends Spliterators.AbstractSpliterator<User> {
+        private final Function<Shard, Stream<User>> query;
+        private final Comparator<User> order;
+        private PriorityQueue<Head> heads;
+
+        private MergingSpliterator(Function<Shard, Stream<User>> query, Comparator<User> order) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.query = query;
+            this.order = order;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super User> action) {
+            if (heads == null) {
+                heads = merge(Arrays.stream(shards).map(shard -> query.apply(shard).iterator()).toList());
+            }
+            var head = heads.poll();
+            if (head == null) {
+                return false;
+            }
+            action.accept(head.user);
+            if (head.advance()) {
+                heads.add(head);
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super User> action) {
+            if (heads == null) {
+                // nothing pulled yet: scan the shards in parallel, then merge their parts
+                var parts = Arrays.stream(shards)
+                        .parallel()
+                        .map(shard -> query.apply(shard).toList().iterator())
+                        .toList();
+                heads = merge(parts);
+            }
+            while (tryAdvance(action)) {
+                // drains the merge
+            }
+        }
+
+        private PriorityQueue<Head> merge(List<Iterator<User>> sources) {
+            var queue = new PriorityQueue<Head>(Math.max(1, sources.size()),
+                    (left, right) -> order.compare(left.user, right.user));
+            for (Iterator<User> source : sources) {
+                var head = new Head(source);
+                if (head.advance()) {
+                    queue.add(head);
+                }
+            }
+            return queue;
+        }
+    }
+
+    private static final class Head {
+        private final Iterator<User> source;
+        private User user;
+
+        private Head(Iterator<User> source) {
+            this.source = source;
+        }
+
+        private boolean advance() {
+            if (!source.hasNext()) {
+                return false;
+            }
+            user = source.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.User;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Secondary index ordering all users by a text field the way {@link UserSort}
+ * does: ignoring case, users without a value first, ties broken by id. Keys hold
+ * the user's own string, so the index adds no copies of the values. Callers keep
+ * it in sync while holding the per-id write slot of the primary store.
+ */
+class SortIndex {
+    private static final Comparator<String> BY_VALUE = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+    private final UserField field;
+    private final ConcurrentSkipListMap<Key, User> users = new ConcurrentSkipListMap<>();
+
+    SortIndex(UserField field) {
+        this.field = field;
+    }
+
+    void add(User user) {
+        users.put(key(user), user);
+    }
+
+    void remove(User user) {
+        users.remove(key(user));
+    }
+
+    void replace(User oldUser, User newUser) {
+        var oldKey = key(oldUser);
+        var newKey = key(newUser);
+        // keys differing only in case are the same entry
+        if (oldKey.compareTo(newKey) != 0) {
+            users.remove(oldKey);
+        }
+        users.put(newKey, newUser);
+    }
+
+    /**
+     * All users in field order or its reverse, as a lazy view over the index.
+     */
+    Stream<User> sorted(boolean descending) {
+        return (descending ? users.descendingMap() : users).values().stream();
+    }
+
+    private Key key(User user) {
+        return new Key(field.text(user), user.getId());
+    }
+
+    private record Key(String value, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int result = BY_VALUE.compare(value, other.value);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Search index over the words of the first name, last name and the local part
+ * of the email of users (the domain is shared by too many users to be worth
+ * indexing). A word is a lower-cased run of letters and digits.
+ * <p>
+ * Entries are ordered by word and then id, so the sorted words double as a
+ * trie: a prefix is a key range, and words within a few typos of a query word
+ * are found by walking that trie with an edit distance row per prefix, pruning
+ * every prefix already too far away. Callers keep it in sync while holding the
+ * per-id write slot of the primary store, as with {@link BirthdayIndex}. The
+ * users of every word are counted too, to estimate a search without running it.
+ */
+class TextIndex {
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    /**
+     * Query words shorter than this only match as prefixes; at this length one
+     * typo is allowed, and from {@link #TWO_TYPOS_LENGTH} on two.
+     */
+    private static final int ONE_TYPO_LENGTH = 4;
+    private static final int TWO_TYPOS_LENGTH = 8;
+    /**
+     * Sorts right after a word and before all of its extensions; words never
+     * contain it.
+     */
+    private static final char WORD_END = '\0';
+
+    private final ConcurrentSkipListMap<Key, User> entries = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Integer> wordCounts = new ConcurrentSkipListMap<>();
+
+    void add(User user) {
+        for (String word : words(user)) {
+            put(word, user);
+        }
+    }
+
+    void remove(User user) {
+        for (String word : words(user)) {
+            removeEntry(word, user);
+        }
+    }
+
+    /**
+     * Swaps {@code oldUser} for {@code newUser}; the words they share stay
+     * findable throughout.
+     */
+    void replace(User oldUser, User newUser) {
+        var newWords = words(newUser);
+        for (String word : newWords) {
+            put(word, newUser);
+        }
+        for (String word : words(oldUser)) {
+            if (!newWords.contains(word)) {
+                removeEntry(word, oldUser);
+            }
+        }
+    }
+
+    /**
+     * Users with an id greater than {@code afterId} that match every word of
+     * {@code query}, in id order; see {@link #matcher(String, boolean)}. The
+     * longest query word picks the candidates from the index and the others
+     * filter them. The stream is a lazy merge over the matching words, so a page
+     * only visits the entries it returns, but a short prefix has to open every
+     * word it covers.
+     */
+    Stream<User> search(String query, boolean fuzzy, int afterId) {
+        var queryWords = split(query);
+        if (queryWords.isEmpty()) {
+            return Stream.empty();
+        }
+        var driver = queryWords.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        List<Iterator<User>> sources = new ArrayList<>();
+        for (String word : matchingWords(driver, fuzzy)) {
+            sources.add(entries.subMap(new Key(word, afterId), false, new Key(word, Integer.MAX_VALUE), true)
+                    .values()
+                    .iterator());
+        }
+        var users = StreamSupport.stream(new MergingSpliterator(sources), false);
+        if (queryWords.size() == 1) {
+            return users;
+        }
+        queryWords.remove(driver);
+        return users.filter(matcher(queryWords, fuzzy));
+    }
+
+    /**
+     * Estimated number of users {@link #search} returns without typos: the fewest
+     * users any query word is a prefix of a word of, counted from the words alone.
+     * A user with several words starting with it is counted for each.
+     */
+    long estimate(String query) {
+        var queryWords = split(query);
+        if (queryWords.isEmpty()) {
+            return 0;
+        }
+        long estimate = Long.MAX_VALUE;
+        for (String queryWord : queryWords) {
+            long users = 0;
+            for (int count : wordCounts.subMap(queryWord, true, queryWord + Character.MAX_VALUE, true).values()) {
+                users += count;
+            }
+            estimate = Math.min(estimate, users);
+        }
+        return estimate;
+    }
+
+    /**
+     * Whether a user matches {@code query}: every query word must be a prefix of
+     * one of the user's words or, when {@code fuzzy}, be within the allowed
+     * number of typos (edits or swaps of adjacent letters) of one.
+     */
+    static Predicate<User> matcher(String query, boolean fuzzy) {
+        return matcher(split(query), fuzzy);
+    }
+
+    private static Predicate<User> matcher(Set<String> queryWords, boolean fuzzy) {
+        return user -> {
+            var userWords = words(user);
+            for (String queryWord : queryWords) {
+                if (userWords.stream().noneMatch(word -> matches(queryWord, word, fuzzy))) {
+                    return false;
+                }
+            }
+            return !queryWords.isEmpty();
+        };
+    }
+
+    private static boolean matches(String queryWord, String word, boolean fuzzy) {
+        return word.startsWith(queryWord) || (fuzzy && withinTypos(queryWord, word, typos(queryWord)));
+    }
+
+    private void put(String word, User user) {
+        // shares the word instance with the users that already have it
+        var existing = firstWord(word);
+        if (entries.put(new Key(word.equals(existing) ? existing : word, user.getId()), user) == null) {
+            wordCounts.merge(word, 1, Integer::sum);
+        }
+    }
+
+    private void removeEntry(String word, User user) {
+        if (entries.remove(new Key(word, user.getId())) != null) {
+            wordCounts.computeIfPresent(word, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private String firstWord(String from) {
+        var key = entries.ceilingKey(new Key(from, Integer.MIN_VALUE));
+        return key == null ? null : key.word;
+    }
+
+    private Set<String> matchingWords(String queryWord, boolean fuzzy) {
+        Set<String> result = new LinkedHashSet<>();
+        for (var word = firstWord(queryWord); word != null && word.startsWith(queryWord);
+             word = firstWord(word + WORD_END)) {
+            result.add(word);
+        }
+        var typos = fuzzy ? typos(queryWord) : 0;
+        if (typos > 0) {
+            var row = new int[queryWord.length() + 1];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = j;
+            }
+            walk(queryWord, typos, "", null, row, result);
+        }
+        return result;
+    }
+
+    /**
+     * Visits the words starting with {@code prefix}, whose distance row against
+     * {@code queryWord} is {@code row} (and {@code previousRow} one letter
+     * shorter), and adds those within {@code typos} to {@code result}.
+     */
+    private void walk(String queryWord, int typos, String prefix, int[] previousRow, int[] row, Set<String> result) {
+        var word = firstWord(prefix);
+        if (word != null && word.equals(prefix)) {
+            if (row[queryWord.length()] <= typos) {
+                result.add(word);
+            }
+            word = firstWord(prefix + WORD_END);
+        }
+        while (word != null && word.startsWith(prefix)) {
+            var letter = word.charAt(prefix.length());
+            var nextRow = step(queryWord, prefix, previousRow, row, letter);
+            if (min(nextRow) <= typos) {
+                walk(queryWord, typos, prefix + letter, row, nextRow, result);
+            }
+            if (letter == Character.MAX_VALUE) {
+                break;
+            }
+            word = firstWord(prefix + (char) (letter + 1));
+        }
+    }
+
+    /**
+     * Next row of the optimal string alignment distance to {@code queryWord}
+     * when {@code prefix} is extended by {@code letter}.
+     */
+    private static int[] step(String queryWord, String prefix, int[] previousRow, int[] row, char letter) {
+        var i = prefix.length() + 1;
+        var nextRow = new int[row.length];
+        nextRow[0] = i;
+        for (int j = 1; j < row.length; j++) {
+            var cost = queryWord.charAt(j - 1) == letter ? 0 : 1;
+            var distance = Math.min(Math.min(row[j] + 1, nextRow[j - 1] + 1), row[j - 1] + cost);
+            if (i > 1 && j > 1 && letter == queryWord.charAt(j - 2) && prefix.charAt(i - 2) == queryWord.charAt(j - 1)) {
+                distance = Math.min(distance, previousRow[j - 2] + 1);
+            }
+            nextRow[j] = distance;
+        }
+        return nextRow;
+    }
+
+    private static int min(int[] row) {
+        var min = Integer.MAX_VALUE;
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static int typos(String queryWord) {
+        if (queryWord.length() >= TWO_TYPOS_LENGTH) {
+            return 2;
+        }
+        return queryWord.length() >= ONE_TYPO_LENGTH ? 1 : 0;
+    }
+
+    /**
+     * Optimal string alignment distance of at most {@code max}, giving up as soon
+     * as a whole row exceeds it.
+     */
+    static boolean withinTypos(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        int[] previousRow = null;
+        var row = new int[a.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        for (int i = 0; i < b.length(); i++) {
+            var nextRow = step(a, b.substring(0, i), previousRow, row, b.charAt(i));
+            if (min(nextRow) > max) {
+                return false;
+            }
+            previousRow = row;
+            row = nextRow;
+        }
+        return row[a.length()] <= max;
+    }
+
+    private static Set<String> words(User user) {
+        Set<String> words = new LinkedHashSet<>();
+        addWords(words, user.getFirstName());
+        addWords(words, user.getLastName());
+        var email = user.getEmail();
+        if (email != null) {
+            var at = email.lastIndexOf('@');
+            addWords(words, at < 0 ? email : email.substring(0, at));
+        }
+        return words;
+    }
+
+    private static Set<String> split(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        addWords(words, text);
+        return words;
+    }
+
+    private static void addWords(Set<String> words, String text) {
+        if (text == null) {
+            return;
+        }
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+    }
+
+    private record Key(String word, int id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int result = word.compareTo(other.word);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Id-ordered merge of the users of several words; a user found under more
+     * than one word is returned once.
+     */
+    private static final class MergingSpliterator extends Spliterators.AbstractSpliterator<User> {
+        private final PriorityQueue<Head> heads;
+        private int lastId;
+        private boolean started;
+
+        private MergingSpliterator(List<Iterator<User>> sources) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+            heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                    Comparator.comparingInt((Head head) -> head.user.getId()));
+            for (Iterator<User> source : sources) {
+                var head = new Head(source);
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super User> action) {
+            Head head;
+            while ((head = heads.poll()) != null) {
+                var user = head.user;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+                if (!started || user.getId() != lastId) {
+                    started = true;
+                    lastId = user.getId();
+                    action.accept(user);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Head {
+        private final Iterator<User> source;
+        private User user;
+
+        private Head(Iterator<User> source) {
+            this.source = source;
+        }
+
+        private boolean advance() {
+            if (!source.hasNext()) {
+                return false;
+            }
+            user = source.next();
+            return true;
+        }
+    }
+}
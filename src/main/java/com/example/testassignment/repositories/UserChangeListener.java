@@ -0,0 +1,37 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+
+/**
+ * Callback for components that mirror the repository content. Repositories call
+ * it while holding the write slot of the affected user, before the change becomes
+ * visible to readers, so callbacks for one user arrive in order; a listener that
+ * throws aborts the write. Listeners before it have seen the write already, so
+ * beans are called in their {@code @Order}: ones that can fail come before the
+ * default order, ones that can't undo a change (like the user counts) come last.
+ */
+public interface UserChangeListener {
+    default void onCreate(User user) {
+    }
+
+    default void onUpdate(User previous, User current) {
+    }
+
+    default void onDelete(User user) {
+    }
+
+    /**
+     * A user taken over from a {@link UserSource}, i.e. one that already existed
+     * before this process started.
+     */
+    default void onLoad(User user) {
+        onCreate(user);
+    }
+
+    /**
+     * Loading a {@link UserSource} stopped before every user was taken over; the
+     * repository goes on without the rest.
+     */
+    default void onLoadFailed(RuntimeException failure) {
+    }
+}
@@ -1,18 +1,162 @@
 package com.example.testassignment.repositories;
 
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.UserSort;
 import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Storage for users. Implementations may index stored instances, so a user handed
+ * to or returned from the repository must not be modified in place; pass a new
+ * instance to {@link #update(User)} instead.
+ * <p>
+ * Writes set the user version: 1 on create, the stored version + 1 on update,
+ * while {@link #restore(User)} and {@link #load(UserSource)} keep the given one.
+ */
 public interface UserRepository {
     List<User> getAll();
 
+    /**
+     * Number of stored users, without copying them.
+     */
+    int count();
+
+    /**
+     * Counter of the repository content, incremented after every write becomes
+     * visible. Read it before reading users to get a version that is never newer
+     * than what was read.
+     */
+    long version();
+
     Optional<User> find(int id);
 
+    /**
+     * The user with {@code email}, compared trimmed and case-insensitively.
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Users with an id greater than {@code afterId}, in id order.
+     */
+    Stream<User> findAfter(int afterId);
+
+    /**
+     * Users with an id greater than {@code afterId} whose first name, last name or
+     * email local part has a word starting with each word of {@code query}, in id
+     * order. With {@code fuzzy} a query word of four letters or more also matches
+     * words one typo away, and of eight or more two typos away.
+     */
+    Stream<User> search(String query, boolean fuzzy, int afterId);
+
+    /**
+     * Users born strictly after {@code from} and strictly before {@code to}, ordered
+     * by birthday and then id. Bounds are epoch days and {@link EpochDays#NONE}
+     * leaves that side of the range open; users without a birthday are never
+     * returned.
+     */
+    Stream<User> findByBirthdayRange(int from, int to);
+
+    /**
+     * Continues {@link #findByBirthdayRange(int, int)} after the position of the
+     * user {@code afterId} born at {@code afterBirthday}.
+     */
+    Stream<User> findByBirthdayRange(int from, int to, int afterBirthday, int afterId);
+
+    /**
+     * Users with an id greater than {@code afterId} whose address matches every
+     * value set in {@code address}, in id order.
+     */
+    Stream<User> findByAddress(AddressFiltering address, int afterId);
+
+    /**
+     * Users whose address matches {@code address} among those
+     * {@link #findByBirthdayRange(int, int, int, int)} returns, in the same order;
+     * {@link EpochDays#NONE} as {@code afterBirthday} starts from the beginning.
+     */
+    Stream<User> findByAddress(AddressFiltering address, int from, int to, int afterBirthday, int afterId);
+
+    /**
+     * Number of users {@link #findByBirthdayRange(int, int)} returns, estimated
+     * from the index without visiting them, or -1 if the repository can't.
+     */
+    default long estimateBirthdayRange(int from, int to) {
+        return -1;
+    }
+
+    /**
+     * Number of users {@link #findByAddress(AddressFiltering, int)} returns from
+     * the start, estimated from the index without visiting them, or -1 if the
+     * repository can't.
+     */
+    default long estimateByAddress(AddressFiltering address) {
+        return -1;
+    }
+
+    /**
+     * Number of users {@link #search} returns from the start without typos,
+     * estimated from the index without visiting them, or -1 if the repository
+     * can't.
+     */
+    default long estimateSearch(String query) {
+        return -1;
+    }
+
+    /**
+     * All users in {@code sort} order, read lazily from an index kept in that order
+     * so that taking a page only visits the users up to its end.
+     *
+     * @throws IllegalArgumentException if the sort is not {@link UserSort#isIndexed() indexed}
+     */
+    Stream<User> findSorted(UserSort sort);
+
+    /**
+     * @throws com.example.testassignment.exceptions.DuplicateEmailException if another
+     *         user has the same email
+     */
     void create(User user);
 
+    /**
+     * Stores all {@code users}, assigning them ascending ids in list order. Each
+     * user is stored on its own like by {@link #create(User)}: one whose email is
+     * taken, also by an earlier user of the list, or whose write a listener aborts
+     * is left out and the others are stored anyway, so no listener has seen a user
+     * that isn't stored.
+     */
+    CreatedUsers createAll(List<User> users);
+
     void delete(User user);
 
+    /**
+     * Stores {@code user} under its own id, replacing a user with the same id, and
+     * makes sure later ids are allocated above it. Used to load persisted state.
+     */
+    void restore(User user);
+
+    /**
+     * Takes over the users of {@code source} that this repository does not hold
+     * yet. Implementations may serve {@link #find(int)} from the source while
+     * the rest is copied in; other reads then wait for the copy to complete.
+     */
+    void load(UserSource source);
+
     void update(User user);
+
+    /**
+     * Updates the user only if the stored one still has {@code expectedVersion}.
+     *
+     * @throws com.example.testassignment.exceptions.VersionConflictException if it has not
+     * @throws com.example.testassignment.exceptions.DuplicateEmailException if the new
+     *         email belongs to another user
+     */
+    void update(User user, long expectedVersion);
+
+    /**
+     * Runs {@code action} while no write is in progress and none can start, so
+     * every write whose listeners have been called before it is visible by then.
+     */
+    void whileWritesPaused(Runnable action);
 }
@@ -0,0 +1,24 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read-only set of users a repository can be loaded from, such as a persisted
+ * snapshot. Every call materializes new {@link User} instances.
+ */
+public interface UserSource {
+    Optional<User> find(int id);
+
+    /**
+     * All users in id order.
+     */
+    Stream<User> users();
+
+    /**
+     * The highest id in the source, 0 when it is empty.
+     */
+    int maxId();
+}
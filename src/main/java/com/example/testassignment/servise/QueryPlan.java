@@ -0,0 +1,156 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.datafilters.UserFilter;
+import com.example.testassignment.entity.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * How a user listing is read, chosen by {@link UserQueryPlanner}: an access path
+ * (an index lookup, the union of the paths of several plans, or a scan), then the
+ * cursor position and the conditions the path doesn't answer checked on every
+ * user it returns, and a sort if the path doesn't return users in listing order.
+ * A sort limited to the users a page needs keeps only those in a bounded heap.
+ */
+final class QueryPlan {
+    /**
+     * Estimate of a plan that had no alternative, so it wasn't counted.
+     */
+    static final long NOT_ESTIMATED = -1;
+
+    private final String access;
+    private final long estimatedRows;
+    private final List<String> considered;
+    private final Supplier<Stream<User>> scan;
+    private final List<QueryPlan> union;
+    private final Predicate<User> position;
+    private final UserFilter residual;
+    private final Comparator<User> sort;
+    private final long sortLimit;
+    private final String sortName;
+    private final boolean fullScan;
+
+    QueryPlan(String access, long estimatedRows, List<String> considered, Supplier<Stream<User>> scan,
+              List<QueryPlan> union, Predicate<User> position, UserFilter residual,
+              Comparator<User> sort, long sortLimit, String sortName, boolean fullScan) {
+        this.access = access;
+        this.estimatedRows = estimatedRows;
+        this.considered = considered;
+        this.scan = scan;
+        this.union = union;
+        this.position = position;
+        this.residual = residual;
+        this.sort = sort;
+        this.sortLimit = sortLimit;
+        this.sortName = sortName;
+        this.fullScan = fullScan;
+    }
+
+    Stream<User> execute() {
+        return execute(null);
+    }
+
+    /**
+     * Runs the plan, adding every user read from an index or scan to
+     * {@code examined} if it is given.
+     */
+    Stream<User> execute(LongAdder examined) {
+        var users = union.isEmpty() ? read(examined) : readUnion(examined);
+        if (position != null) {
+            users = users.filter(position);
+        }
+        if (residual != null) {
+            users = users.filter(residual);
+        }
+        if (sort == null) {
+            return users;
+        }
+        if (sortLimit == 0) {
+            return users.sorted(sort);
+        }
+        var unsorted = users;
+        // deferred like sorted() until the stream is consumed
+        return StreamSupport.stream(() -> top(unsorted, sort, sortLimit).spliterator(), Spliterator.ORDERED, false);
+    }
+
+    /**
+     * The first {@code limit} users in {@code order}, sorted; the rest are dropped
+     * as they are read instead of sorting all of them.
+     */
+    private static List<User> top(Stream<User> users, Comparator<User> order, long limit) {
+        PriorityQueue<User> heap = new PriorityQueue<>(order.reversed());
+        users.forEach(user -> {
+            if (heap.size() < limit) {
+                heap.add(user);
+            } else if (order.compare(user, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(user);
+            }
+        });
+        List<User> top = new ArrayList<>(heap);
+        top.sort(order);
+        return top;
+    }
+
+    private Stream<User> read(LongAdder examined) {
+        var users = scan.get();
+        return examined == null ? users : users.peek(user -> examined.increment());
+    }
+
+    /**
+     * Users of all plans of the union once each, in id order.
+     */
+    private Stream<User> readUnion(LongAdder examined) {
+        Map<Integer, User> users = union.stream()
+                .flatMap(plan -> plan.execute(examined))
+                .collect(Collectors.toMap(User::getId, user -> user, (first, second) -> first, TreeMap::new));
+        return users.values().stream();
+    }
+
+    String getAccess() {
+        return access;
+    }
+
+    long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    List<String> getConsidered() {
+        return considered;
+    }
+
+    /**
+     * Conditions checked on the users the access path returns, or {@code null}.
+     */
+    UserFilter getResidual() {
+        return residual;
+    }
+
+    /**
+     * Order the users are sorted in after reading them, with the number kept if the
+     * sort is limited, or {@code null} if the access path returns them in listing
+     * order.
+     */
+    String getSortName() {
+        if (sortName == null || sortLimit == 0) {
+            return sortName;
+        }
+        return sortName + ", top " + sortLimit;
+    }
+
+    boolean isFullScan() {
+        return fullScan;
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.BirthdayRangeFiltering;
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserFilter;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import com.example.testassignment.repositories.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cost-based planner turning the conditions of a user listing into a
+ * {@link QueryPlan}. Every index of the {@link UserRepository} that can answer
+ * some of the conditions is a candidate access path:
+ * <ul>
+ * <li>an email equality: the unique email index, so at most one user;</li>
+ * <li>country, city and zip code equalities together: the address bitmaps,
+ * combined with the birthday range of a birthday-ordered listing;</li>
+ * <li>a birthday range or date: the birthday index;</li>
+ * <li>name equalities and prefixes and email prefixes: the word index, which
+ * returns a superset for the conditions to filter;</li>
+ * <li>a disjunction whose branches all have an access path: their union.</li>
+ * </ul>
+ * Candidates are compared by the number of users they return, estimated from the
+ * indexes alone: the cardinality of the address bitmaps, the birthday counts of
+ * the range and the user counts of the searched words, with an address and a
+ * birthday range taken as independent. Only a path the repository can't estimate
+ * is run to count its users, up to the smallest number so far and at most
+ * {@link #SORT_LIMIT}. The smallest one wins. A path not in listing order has to
+ * be read whole and sorted, so it only qualifies up to {@link #SORT_LIMIT} users;
+ * the fallback is a scan in listing order, by id or through the birthday range.
+ * <p>
+ * A listing with a {@link UserSort} is in that order instead, so every index path
+ * has to be sorted. For an indexed sort the walk of the repository index in sort
+ * order is a candidate too: it stops once the page is full, so it reads about the
+ * page size divided by the share of users that match, and wins over a smaller
+ * path only when that is less. Other sorts read the smallest path or scan all
+ * users and keep the page in a bounded heap.
+ */
+final class UserQueryPlanner {
+    static final int SORT_LIMIT = 4096;
+    private static final Comparator<User> BY_ID = Comparator.comparingInt(User::getId);
+    private static final Comparator<User> BY_BIRTHDAY = Comparator.comparingInt(User::getBirthday)
+            .thenComparing(BY_ID);
+
+    private final UserRepository userRepository;
+
+    UserQueryPlanner(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Plans the listing of the users matching {@code where} ({@code null} for all)
+     * after {@code cursor} ({@code null} from the start): in {@code sort} order if
+     * one is given, which can't be combined with a cursor, otherwise in birthday
+     * order within {@code range} if one is given and in id order without one.
+     * {@code limit} is the number of users the page needs from the start of the
+     * listing, 0 for all of them.
+     */
+    QueryPlan plan(UserFilter where, BirthdayRangeFiltering range, PageCursor cursor, UserSort sort, long limit) {
+        List<UserFilter> conjuncts = new ArrayList<>();
+        if (range != null) {
+            conjuncts.add(new UserFilter.Range(UserField.BIRTHDAY, bound(range.getFrom()), bound(range.getTo())));
+        }
+        if (where != null) {
+            conjuncts.addAll(where.conjuncts());
+        }
+        // a sorted listing only filters by the range
+        var order = new Order(sort == null ? range : null, cursor == null ? EpochDays.NONE : cursor.birthday(),
+                cursor == null ? 0 : cursor.id(), sort, limit);
+        return plan(conjuncts, order, false);
+    }
+
+    private QueryPlan plan(List<UserFilter> conjuncts, Order order, boolean estimate) {
+        var email = emailAccess(conjuncts);
+        if (email != null) {
+            return email.toPlan(1, List.of(), conjuncts, order);
+        }
+        List<Access> candidates = new ArrayList<>();
+        var address = addressAccess(conjuncts, order);
+        if (address != null) {
+            candidates.add(address);
+        } else {
+            // with address conditions their access path reads the range itself
+            addIfPresent(candidates, birthdayAccess(conjuncts, order));
+        }
+        addIfPresent(candidates, textAccess(conjuncts, order));
+        for (UserFilter conjunct : conjuncts) {
+            if (conjunct instanceof UserFilter.Or or) {
+                addIfPresent(candidates, unionAccess(or, order));
+            }
+        }
+        if (order.sort() != null) {
+            candidates.replaceAll(Access::unordered);
+        }
+        if (candidates.size() == 1 && candidates.get(0).inOrder() && !estimate) {
+            return candidates.get(0).toPlan(QueryPlan.NOT_ESTIMATED, List.of(), conjuncts, order);
+        }
+
+        Access chosen = null;
+        long chosenRows = Long.MAX_VALUE;
+        List<String> considered = new ArrayList<>(candidates.size());
+        for (Access candidate : candidates) {
+            var limit = Math.min(chosenRows, SORT_LIMIT);
+            var counted = candidate.rows() == QueryPlan.NOT_ESTIMATED;
+            var rows = counted ? candidate.scan().get().limit(limit + 1).count() : candidate.rows();
+            considered.add(candidate.description() + ": "
+                    + (counted && rows > limit ? "more than " + limit : rows) + " rows");
+            var qualifies = candidate.inOrder() || rows <= SORT_LIMIT;
+            if (qualifies && (rows < chosenRows || (rows == chosenRows && candidate.inOrder() && !chosen.inOrder()))) {
+                chosen = candidate;
+                chosenRows = rows;
+            }
+        }
+        if (order.sort() != null && order.sort().isIndexed()) {
+            var walk = sortedAccess(conjuncts, order, chosen == null ? QueryPlan.NOT_ESTIMATED : chosenRows);
+            if (chosen == null || walk.rows() < chosenRows) {
+                if (chosen != null) {
+                    considered.add(walk.description() + ": about " + walk.rows() + " rows");
+                }
+                return walk.toPlan(walk.rows(), considered, conjuncts, order);
+            }
+        }
+        if (chosen == null) {
+            // by id, as a birthday-ordered listing always has its range to read
+            var scan = new Access("id scan", List.of(), true, () -> userRepository.findAfter(order.afterId()),
+                    userRepository.count(), List.of(), true);
+            return (order.sort() == null ? scan : scan.unordered()).toPlan(scan.rows(), considered, conjuncts, order);
+        }
+        return chosen.toPlan(chosenRows, considered, conjuncts, order);
+    }
+
+    /**
+     * Walk of the index in sort order, reading about {@code limit} users for every
+     * {@code matching} of all users until the page is full. That assumes matching
+     * users are spread over the index, which conditions on the sort field break.
+     */
+    private Access sortedAccess(List<UserFilter> conjuncts, Order order, long matching) {
+        var sort = order.sort();
+        var users = userRepository.count();
+        var spread = conjuncts.stream().noneMatch(conjunct -> tests(conjunct, sort.field()));
+        var rows = order.limit() == 0 || matching == QueryPlan.NOT_ESTIMATED || !spread
+                ? users : Math.min(users, order.limit() * users / Math.max(matching, 1));
+        return new Access("index walk in " + sort + " order", List.of(), true,
+                () -> userRepository.findSorted(sort), rows, List.of(), true);
+    }
+
+    private Access emailAccess(List<UserFilter> conjuncts) {
+        for (UserFilter conjunct : conjuncts) {
+            if (conjunct instanceof UserFilter.Equals equals && equals.field() == UserField.EMAIL) {
+                var email = (String) equals.value();
+                return new Access("email index", List.of(conjunct), false,
+                        () -> userRepository.findByEmail(email).stream(), 1, List.of(), false);
+            }
+        }
+        return null;
+    }
+
+    private Access addressAccess(List<UserFilter> conjuncts, Order order) {
+        var address = new AddressFiltering();
+        List<UserFilter> covered = new ArrayList<>();
+        for (UserFilter conjunct : conjuncts) {
+            if (conjunct instanceof UserFilter.Equals equals) {
+                if (equals.field() == UserField.COUNTRY && address.getCountry() == null) {
+                    address.setCountry((String) equals.value());
+                    covered.add(conjunct);
+                } else if (equals.field() == UserField.CITY && address.getCity() == null) {
+                    address.setCity((String) equals.value());
+                    covered.add(conjunct);
+                } else if (equals.field() == UserField.ZIP_CODE && address.getZipCode() == null) {
+                    address.setZipCode((Integer) equals.value());
+                    covered.add(conjunct);
+                }
+            }
+        }
+        if (covered.isEmpty()) {
+            return null;
+        }
+        var rows = estimated(userRepository.estimateByAddress(address));
+        if (order.range() == null) {
+            return new Access("address index", covered, true,
+                    () -> userRepository.findByAddress(address, order.afterId()), rows, List.of(), false);
+        }
+        // the birthday range of the listing is the first conjunct
+        covered.add(0, conjuncts.get(0));
+        var range = order.range();
+        var inRange = estimated(userRepository.estimateBirthdayRange(range.getFrom(), range.getTo()));
+        var users = userRepository.count();
+        return new Access("address index", covered, true,
+                () -> userRepository.findByAddress(address, range.getFrom(), range.getTo(),
+                        order.afterBirthday(), order.afterId()),
+                rows == QueryPlan.NOT_ESTIMATED || inRange == QueryPlan.NOT_ESTIMATED || users == 0
+                        ? QueryPlan.NOT_ESTIMATED : rows * inRange / users,
+                List.of(), false);
+    }
+
+    private Access birthdayAccess(List<UserFilter> conjuncts, Order order) {
+        if (order.range() != null) {
+            var range = order.range();
+            Supplier<Stream<User>> scan = order.afterBirthday() == EpochDays.NONE
+                    ? () -> userRepository.findByBirthdayRange(range.getFrom(), range.getTo())
+                    : () -> userRepository.findByBirthdayRange(range.getFrom(), range.getTo(),
+                    order.afterBirthday(), order.afterId());
+            return new Access("birthday index", List.of(conjuncts.get(0)), true, scan,
+                    estimated(userRepository.estimateBirthdayRange(range.getFrom(), range.getTo())), List.of(), false);
+        }
+        for (UserFilter conjunct : conjuncts) {
+            int from;
+            int to;
+            if (conjunct instanceof UserFilter.Range range && range.field() == UserField.BIRTHDAY) {
+                from = range.from() == null ? EpochDays.NONE : range.from();
+                to = range.to() == null ? EpochDays.NONE : range.to();
+            } else if (conjunct instanceof UserFilter.Equals equals && equals.field() == UserField.BIRTHDAY) {
+                from = (Integer) equals.value() - 1;
+                to = (Integer) equals.value() + 1;
+            } else {
+                continue;
+            }
+            return new Access("birthday index", List.of(conjunct), false,
+                    () -> userRepository.findByBirthdayRange(from, to),
+                    estimated(userRepository.estimateBirthdayRange(from, to)), List.of(), false);
+        }
+        return null;
+    }
+
+    /**
+     * Every user whose field equals or starts with a text has a word starting with
+     * each word of that text, so searching for all of them returns a superset.
+     */
+    private Access textAccess(List<UserFilter> conjuncts, Order order) {
+        List<String> words = new ArrayList<>();
+        List<UserFilter> used = new ArrayList<>();
+        for (UserFilter conjunct : conjuncts) {
+            String text = null;
+            if (conjunct instanceof UserFilter.Equals equals && isName(equals.field())) {
+                text = (String) equals.value();
+            } else if (conjunct instanceof UserFilter.Prefix prefix && isName(prefix.field())) {
+                text = prefix.prefix();
+            } else if (conjunct instanceof UserFilter.Prefix prefix && prefix.field() == UserField.EMAIL) {
+                // only the local part of emails is indexed
+                var at = prefix.prefix().indexOf('@');
+                text = at < 0 ? prefix.prefix() : prefix.prefix().substring(0, at);
+            }
+            if (text != null && text.chars().anyMatch(Character::isLetterOrDigit)) {
+                words.add(text);
+                used.add(conjunct);
+            }
+        }
+        if (words.isEmpty()) {
+            return null;
+        }
+        var query = String.join(" ", words);
+        // a birthday-ordered listing sorts the result, so the cursor id doesn't bound it
+        var afterId = order.range() == null ? order.afterId() : 0;
+        return new Access("word index on " + describe(used), List.of(), order.range() == null,
+                () -> userRepository.search(query, false, afterId),
+                estimated(userRepository.estimateSearch(query)), List.of(), false);
+    }
+
+    private Access unionAccess(UserFilter.Or or, Order order) {
+        List<QueryPlan> branches = new ArrayList<>(or.filters().size());
+        long rows = 0;
+        for (UserFilter branch : or.filters()) {
+            var plan = plan(branch.conjuncts(), Order.ID, true);
+            rows += plan.getEstimatedRows();
+            if (plan.isFullScan() || rows > SORT_LIMIT) {
+                return null;
+            }
+            branches.add(plan);
+        }
+        var description = branches.stream()
+                .map(UserQueryPlanner::describe)
+                .collect(Collectors.joining(", ", "union of [", "]"));
+        return new Access(description, List.of(or), false, null, rows, branches, false);
+    }
+
+    private static long estimated(long rows) {
+        return rows < 0 ? QueryPlan.NOT_ESTIMATED : rows;
+    }
+
+    private static String describe(QueryPlan plan) {
+        return plan.getResidual() == null ? plan.getAccess() : plan.getAccess() + " filtered by " + plan.getResidual();
+    }
+
+    private static String describe(List<UserFilter> filters) {
+        return filters.stream().map(UserFilter::toString).collect(Collectors.joining(" AND "));
+    }
+
+    private static boolean tests(UserFilter filter, UserField field) {
+        if (filter instanceof UserFilter.Equals equals) {
+            return equals.field() == field;
+        }
+        if (filter instanceof UserFilter.Prefix prefix) {
+            return prefix.field() == field;
+        }
+        if (filter instanceof UserFilter.Range range) {
+            return range.field() == field;
+        }
+        var children = filter instanceof UserFilter.And and ? and.filters() : ((UserFilter.Or) filter).filters();
+        return children.stream().anyMatch(child -> tests(child, field));
+    }
+
+    private static boolean isName(UserField field) {
+        return field == UserField.FIRST_NAME || field == UserField.LAST_NAME;
+    }
+
+    private static Integer bound(int epochDay) {
+        return epochDay == EpochDays.NONE ? null : epochDay;
+    }
+
+    private static <T> void addIfPresent(List<T> list, T value) {
+        if (value != null) {
+            list.add(value);
+        }
+    }
+
+    /**
+     * Listing order: by {@code sort} if it is set, else by birthday within
+     * {@code range} if it is set and by id otherwise, continuing after the given
+     * position; {@code limit} users are needed from the start, 0 for all.
+     */
+    private record Order(BirthdayRangeFiltering range, int afterBirthday, int afterId, UserSort sort, long limit) {
+        static final Order ID = new Order(null, EpochDays.NONE, 0, null, 0);
+
+        Comparator<User> comparator() {
+            if (sort != null) {
+                return sort.comparator();
+            }
+            return range == null ? BY_ID : BY_BIRTHDAY;
+        }
+
+        String name() {
+            if (sort != null) {
+                return sort.toString();
+            }
+            return range == null ? "id" : "birthday";
+        }
+
+        Predicate<User> isAfterPosition() {
+            if (range == null) {
+                return user -> user.getId() > afterId;
+            }
+            return user -> afterBirthday == EpochDays.NONE || user.getBirthday() > afterBirthday
+                    || (user.getBirthday() == afterBirthday && user.getId() > afterId);
+        }
+    }
+
+    /**
+     * Candidate access path returning users that match {@code covered}, in listing
+     * order and after the cursor position when {@code inOrder}; {@code rows} is
+     * known up front for some paths and {@link QueryPlan#NOT_ESTIMATED} otherwise.
+     */
+    private record Access(String description, List<UserFilter> covered, boolean inOrder,
+                          Supplier<Stream<User>> scan, long rows, List<QueryPlan> union, boolean fullScan) {
+
+        Access unordered() {
+            return new Access(description, covered, false, scan, rows, union, fullScan);
+        }
+
+        QueryPlan toPlan(long estimatedRows, List<String> considered, List<UserFilter> conjuncts, Order order) {
+            List<UserFilter> residual = new ArrayList<>(conjuncts);
+            residual.removeAll(covered);
+            var access = covered.isEmpty() || !union.isEmpty() ? description : description + " on " + describe(covered);
+            // a union is read in id order
+            var sorted = !inOrder && (union.isEmpty() || order.range() != null || order.sort() != null);
+            // a sorted listing has no cursor
+            var position = inOrder || order.sort() != null ? null : order.isAfterPosition();
+            return new QueryPlan(access, estimatedRows, considered, scan, union, position, UserFilter.allOf(residual),
+                    sorted ? order.comparator() : null, order.limit(), sorted ? order.name() : null, fullScan);
+        }
+    }
+}
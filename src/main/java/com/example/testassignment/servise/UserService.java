@@ -1,23 +1,88 @@
 package com.example.testassignment.servise;
 
+import com.example.testassignment.datafilters.PaginationParams;
 import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.dto.QueryPlanDto;
 import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.VersionConflictException;
 import com.example.testassignment.payload.UpdateUserPayload;
 import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.CreatedUsers;
+import com.example.testassignment.repositories.UserRepository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface UserService {
     List<User> getAllUsers(UserListFiltering filter);
 
+    /**
+     * Lazily pulls the users matching {@code filter} from the repository, so the
+     * caller can write them out without holding the whole result in memory.
+     */
+    Stream<User> streamUsers(UserListFiltering filter);
+
+    /**
+     * Reads the page {@code filter} selects like {@link #getAllUsers} and reports
+     * the plan it was read with and the users it examined.
+     */
+    QueryPlanDto explainUsers(UserListFiltering filter);
+
     Optional<User> getUser(int id);
 
+    /**
+     * Page of the users matching {@code query}, see {@link UserRepository#search};
+     * a cursor in {@code pagination} resumes after the user it names.
+     */
+    List<User> searchUsers(String query, boolean fuzzy, PaginationParams pagination);
+
+    /**
+     * Looks the user up by email, ignoring case and surrounding whitespace.
+     */
+    Optional<User> getUserByEmail(String email);
+
     void createUser(UserPayload userPayload);
 
+    /**
+     * Creates all users with a single repository write; see
+     * {@link UserRepository#createAll(List)} for which of them are stored.
+     */
+    CreatedUsers createUsers(List<UserPayload> userPayloads);
+
     void deleteUser(int id);
 
+    /**
+     * Version of the whole user set, see {@link UserRepository#version()}.
+     */
+    long getVersion();
+
     void updateUser(int id, UpdateUserPayload userPayload);
 
+    /**
+     * Partial update that only applies while the user still has
+     * {@code expectedVersion} ({@link User#ANY_VERSION} for any).
+     *
+     * @throws VersionConflictException otherwise
+     */
+    void updateUser(int id, UpdateUserPayload userPayload, long expectedVersion);
+
+    /**
+     * Applies {@code patch} to a copy of the stored user (address included) and
+     * stores the result; an exception thrown by the patch leaves the user unchanged.
+     * Without an expected version a user changed in between is patched again, with
+     * one the write fails with a {@link VersionConflictException}.
+     */
+    void patchUser(int id, long expectedVersion, Consumer<User> patch);
+
     void updateUser(int id, UserPayload userPayload);
+
+    /**
+     * Full update that only applies while the user still has
+     * {@code expectedVersion} ({@link User#ANY_VERSION} for any).
+     *
+     * @throws VersionConflictException otherwise
+     */
+    void updateUser(int id, UserPayload userPayload, long expectedVersion);
 }
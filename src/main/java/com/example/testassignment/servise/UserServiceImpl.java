@@ -1,56 +1,163 @@
 package com.example.testassignment.servise;
 
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserFilter;
 import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.dto.QueryPlanDto;
 import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
 import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.UserMapper;
 import com.example.testassignment.helper.UserPatcher;
 import com.example.testassignment.payload.UpdateUserPayload;
 import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.CreatedUsers;
 import com.example.testassignment.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper = new ModelMapper();
 
     public List<User> getAllUsers(UserListFiltering filter) {
+        if (filter != null && (isCursorPage(filter) || isRangeFiltered(filter) || isAddressFiltered(filter)
+                || filter.getWhere() != null || filter.getSort() != null)) {
+            return streamUsers(filter).toList();
+        }
         var users = userRepository.getAll();
-        if (filter != null) {
-            var filteredUsers = Optional.ofNullable(filter.getRange())
-                    .map((r) -> users.stream()
-                            .filter(u -> r.getFrom() == null || u.getBirthday().after(r.getFrom()))
-                            .filter(u -> r.getTo() == null || u.getBirthday().before(r.getTo()))
-                            .toList())
-                    .orElse(users);
-            if (filter.getPagination() != null) {
-                var from = filter.getPagination().getOffset();
-                if (from >= filteredUsers.size()) {
-                    return List.of();
-                }
-                var limit = filter.getPagination().getLimit();
-                return filteredUsers.stream()
-                        .skip(from)
-                        .limit(limit == 0 ? filteredUsers.size() : limit)
-                        .toList();
+        if (filter != null && filter.getPagination() != null) {
+            if (filter.getPagination().getOffset() >= users.size()) {
+                return List.of();
             }
-            return filteredUsers;
+            return streamPage(users.stream(), filter.getPagination()).toList();
         }
         return users;
     }
 
+    @Override
+    public Stream<User> streamUsers(UserListFiltering filter) {
+        if (filter == null) {
+            return userRepository.findAfter(0);
+        }
+        return streamPage(plan(filter).execute(), filter.getPagination());
+    }
+
+    @Override
+    public QueryPlanDto explainUsers(UserListFiltering filter) {
+        var filtering = filter == null ? new UserListFiltering() : filter;
+        var plan = plan(filtering);
+        var examined = new LongAdder();
+        var returned = streamPage(plan.execute(examined), filtering.getPagination())
+                .collect(Collectors.counting());
+        return new QueryPlanDto(plan.getAccess(),
+                plan.getResidual() == null ? null : plan.getResidual().toString(),
+                plan.getSortName(),
+                plan.getEstimatedRows() == QueryPlan.NOT_ESTIMATED ? null : plan.getEstimatedRows(),
+                plan.getConsidered(),
+                examined.sum(),
+                returned);
+    }
+
+    private static boolean isCursorPage(UserListFiltering filter) {
+        return filter.getPagination() != null && filter.getPagination().getAfter() != null;
+    }
+
+    private static boolean isRangeFiltered(UserListFiltering filter) {
+        return filter.getRange() != null && filter.getRange().hasBounds();
+    }
+
+    private static boolean isAddressFiltered(UserListFiltering filter) {
+        return filter.getAddress() != null && filter.getAddress().hasValues();
+    }
+
+    /**
+     * Plans the listing in the sort order of {@code filter} if it has one, else in
+     * birthday order within its range if it has bounds and in id order otherwise,
+     * continuing after its cursor.
+     */
+    private QueryPlan plan(UserListFiltering filter) {
+        var range = isRangeFiltered(filter) ? filter.getRange() : null;
+        PageCursor cursor = null;
+        if (isCursorPage(filter)) {
+            if (filter.getSort() != null) {
+                throw new InvalidDataException("Sorted listings are paged by offset, not cursor");
+            }
+            cursor = PageCursor.decode(filter.getPagination().getAfter());
+            if ((range != null) != cursor.isBirthdayOrdered()) {
+                throw new InvalidDataException("Cursor does not match the filter");
+            }
+        }
+        return new UserQueryPlanner(userRepository).plan(where(filter), range, cursor, filter.getSort(),
+                pageEnd(filter.getPagination()));
+    }
+
+    /**
+     * Number of users from the start of the listing a page needs, 0 for all.
+     */
+    private static long pageEnd(PaginationParams pagination) {
+        if (pagination == null || pagination.getLimit() == 0) {
+            return 0;
+        }
+        return (long) pagination.getOffset() + pagination.getLimit();
+    }
+
+    private static UserFilter where(UserListFiltering filter) {
+        List<UserFilter> conditions = new ArrayList<>();
+        var address = filter.getAddress();
+        if (address != null) {
+            if (address.getCountry() != null) {
+                conditions.add(new UserFilter.Equals(UserField.COUNTRY, address.getCountry()));
+            }
+            if (address.getCity() != null) {
+                conditions.add(new UserFilter.Equals(UserField.CITY, address.getCity()));
+            }
+            if (address.getZipCode() != null) {
+                conditions.add(new UserFilter.Equals(UserField.ZIP_CODE, address.getZipCode()));
+            }
+        }
+        if (filter.getWhere() != null) {
+            conditions.add(filter.getWhere());
+        }
+        return UserFilter.allOf(conditions);
+    }
+
+    private Stream<User> streamPage(Stream<User> users, PaginationParams pagination) {
+        if (pagination == null) {
+            return users;
+        }
+        var limit = pagination.getLimit();
+        return users.skip(pagination.getOffset())
+                .limit(limit == 0 ? Long.MAX_VALUE : limit);
+    }
+
     @Override
     public void createUser(UserPayload userPayload) {
-        User user = modelMapper.map(userPayload, User.class);
+        User user = UserMapper.toUser(userPayload);
         userRepository.create(user);
     }
 
+    @Override
+    public CreatedUsers createUsers(List<UserPayload> userPayloads) {
+        List<User> users = new ArrayList<>(userPayloads.size());
+        for (UserPayload userPayload : userPayloads) {
+            users.add(UserMapper.toUser(userPayload));
+        }
+        return userRepository.createAll(users);
+    }
+
     @Override
     public void deleteUser(int id) {
         userRepository.find(id)
@@ -62,21 +169,79 @@ public class UserServiceImpl implements UserService {
         return userRepository.find(id);
     }
 
+    @Override
+    public List<User> searchUsers(String query, boolean fuzzy, PaginationParams pagination) {
+        var afterId = 0;
+        if (pagination != null && pagination.getAfter() != null) {
+            var cursor = PageCursor.decode(pagination.getAfter());
+            if (cursor.isBirthdayOrdered()) {
+                throw new InvalidDataException("Cursor does not match the filter");
+            }
+            afterId = cursor.id();
+        }
+        return streamPage(userRepository.search(query, fuzzy, afterId), pagination).toList();
+    }
+
+    @Override
+    public Optional<User> getUserByEmail(String email) {
+        return userRepository.findByEmail(email);
+    }
+
+    @Override
+    public long getVersion() {
+        return userRepository.version();
+    }
+
     @Override
     public void updateUser(int id, UserPayload userPayload) {
+        updateUser(id, userPayload, User.ANY_VERSION);
+    }
+
+    @Override
+    public void updateUser(int id, UserPayload userPayload, long expectedVersion) {
         Optional<User> existUser = getUser(id);
         if (existUser.isEmpty()) {
             throw new NoSuchUserException("User doesn't exist");
         }
-        User user = modelMapper.map(userPayload, User.class);
+        User user = UserMapper.toUser(userPayload);
         user.setId(existUser.get().getId());
-        userRepository.update(user);
+        if (expectedVersion == User.ANY_VERSION) {
+            userRepository.update(user);
+        } else {
+            userRepository.update(user, expectedVersion);
+        }
     }
 
     @Override
     public void updateUser(int id, UpdateUserPayload userUpdates) {
-        User foundUser = getUser(id).orElseThrow(NoSuchUserException::new);
-        UserPatcher.apply(foundUser, userUpdates);
-        userRepository.update(foundUser);
+        updateUser(id, userUpdates, User.ANY_VERSION);
+    }
+
+    @Override
+    public void updateUser(int id, UpdateUserPayload userUpdates, long expectedVersion) {
+        patchUser(id, expectedVersion, user -> UserPatcher.apply(user, userUpdates));
+    }
+
+    @Override
+    public void patchUser(int id, long expectedVersion, Consumer<User> patch) {
+        while (true) {
+            User foundUser = getUser(id).orElseThrow(NoSuchUserException::new);
+            if (expectedVersion != User.ANY_VERSION && foundUser.getVersion() != expectedVersion) {
+                throw new VersionConflictException("User has version " + foundUser.getVersion());
+            }
+            User patchedUser = foundUser.toBuilder()
+                    .address(UserMapper.copy(foundUser.getAddress()))
+                    .build();
+            patch.accept(patchedUser);
+            try {
+                userRepository.update(patchedUser, foundUser.getVersion());
+                return;
+            } catch (VersionConflictException e) {
+                if (expectedVersion != User.ANY_VERSION) {
+                    throw e;
+                }
+                // changed after it was read; patch the current user again
+            }
+        }
     }
 }
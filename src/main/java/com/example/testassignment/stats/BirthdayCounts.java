@@ -0,0 +1,52 @@
+package com.example.testassignment.stats;
+
+import com.example.testassignment.helper.EpochDays;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Numbers of users per birthday in a Fenwick tree over the days of 1900 to 2099,
+ * so both a change and the count of users born up to any date take
+ * O(log days). Birthdays before or after that span are counted on its first or
+ * last day.
+ */
+final class BirthdayCounts {
+    private static final int FIRST_DAY = EpochDays.of(1900, 1, 1);
+    private static final int DAYS = EpochDays.of(2100, 1, 1) - FIRST_DAY;
+
+    // 1-based, element i holds the sum of the (i & -i) days ending at day i - 1
+    private final AtomicLongArray tree = new AtomicLongArray(DAYS + 1);
+
+    void add(int epochDay, long delta) {
+        for (int i = index(epochDay) + 1; i <= DAYS; i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+
+    /**
+     * Users born on or before {@code epochDay}, which has to be in the span for
+     * earlier birthdays to be counted right.
+     */
+    long countUpTo(int epochDay) {
+        if (epochDay < FIRST_DAY) {
+            return 0;
+        }
+        long count = 0;
+        for (int i = index(epochDay) + 1; i > 0; i -= i & -i) {
+            count += tree.get(i);
+        }
+        return count;
+    }
+
+    long total() {
+        return countUpTo(Integer.MAX_VALUE);
+    }
+
+    static boolean covers(int epochDay) {
+        return epochDay >= FIRST_DAY && epochDay - FIRST_DAY < DAYS;
+    }
+
+    private static int index(int epochDay) {
+        return (int) Math.max(0, Math.min((long) epochDay - FIRST_DAY, DAYS - 1));
+    }
+}
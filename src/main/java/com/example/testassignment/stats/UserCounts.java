@@ -0,0 +1,125 @@
+package com.example.testassignment.stats;
+
+import com.example.testassignment.dto.UserCountsDto;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import com.example.testassignment.repositories.UserChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Numbers of users in total, by birth year, by age and by country, kept up to
+ * date by the repository callbacks so that reading them costs the number of groups
+ * and never touches a user. Ages move with the date rather than with writes, so
+ * they are counted at read time from the {@link BirthdayCounts}, in buckets of
+ * {@code user.stats.age-bucket-years} starting at {@code user.age.min}. Countries
+ * are grouped ignoring case and surrounding whitespace like address filters.
+ * <p>
+ * Writes of different users run concurrently, so counts read meanwhile may be off
+ * by the users being written. A write is counted when the repository calls this
+ * listener, so it comes after every listener that can abort the write.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class UserCounts implements UserChangeListener {
+    private final int minAge;
+    private final int bucketYears;
+    private final LongAdder total = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> byBirthYear = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Country> byCountry = new ConcurrentHashMap<>();
+    private final BirthdayCounts byBirthday = new BirthdayCounts();
+
+    public UserCounts(@Value("${user.age.min}") int minAge,
+                      @Value("${user.stats.age-bucket-years}") int bucketYears) {
+        if (bucketYears <= 0) {
+            throw new IllegalArgumentException("user.stats.age-bucket-years must be positive");
+        }
+        this.minAge = minAge;
+        this.bucketYears = bucketYears;
+    }
+
+    @Override
+    public void onCreate(User user) {
+        count(user, 1);
+    }
+
+    @Override
+    public void onUpdate(User previous, User current) {
+        count(previous, -1);
+        count(current, 1);
+    }
+
+    @Override
+    public void onDelete(User user) {
+        count(user, -1);
+    }
+
+    public UserCountsDto get() {
+        Map<Integer, Long> birthYears = new TreeMap<>();
+        byBirthYear.forEach((year, count) -> putIfPositive(birthYears, year, count.sum()));
+        Map<String, Long> countries = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byCountry.values().forEach(country -> putIfPositive(countries, country.name(), country.count().sum()));
+        return new UserCountsDto(total.sum(), birthYears, ageBuckets(), countries);
+    }
+
+    /**
+     * Users younger than the minimum age (if any), then buckets up to the oldest
+     * user, keyed by their age range; the last one is open-ended when the
+     * birthdays it would end at are no longer counted by day.
+     */
+    private Map<String, Long> ageBuckets() {
+        var today = EpochDays.today();
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        var older = byBirthday.countUpTo(EpochDays.minusYears(today, minAge));
+        putIfPositive(buckets, "0-" + (minAge - 1), byBirthday.total() - older);
+        for (int from = minAge; older > 0; from += bucketYears) {
+            var to = from + bucketYears;
+            var cutoff = EpochDays.minusYears(today, to);
+            if (!BirthdayCounts.covers(cutoff)) {
+                buckets.put(from + "+", older);
+                break;
+            }
+            var olderThanBucket = byBirthday.countUpTo(cutoff);
+            buckets.put(from + "-" + (to - 1), older - olderThanBucket);
+            older = olderThanBucket;
+        }
+        return buckets;
+    }
+
+    private void count(User user, int delta) {
+        total.add(delta);
+        if (user.hasBirthday()) {
+            var year = EpochDays.toYmd(user.getBirthday()) / 10000;
+            byBirthYear.computeIfAbsent(year, key -> new LongAdder()).add(delta);
+            byBirthday.add(user.getBirthday(), delta);
+        }
+        var address = user.getAddress();
+        if (address != null && address.getCountry() != null && !address.getCountry().isBlank()) {
+            var name = address.getCountry().trim();
+            byCountry.computeIfAbsent(name.toLowerCase(Locale.ROOT), key -> new Country(name, new LongAdder()))
+                    .count()
+                    .add(delta);
+        }
+    }
+
+    private static <K> void putIfPositive(Map<K, Long> counts, K key, long count) {
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+
+    /**
+     * Count of a country under the spelling it was first seen with.
+     */
+    private record Country(String name, LongAdder count) {
+    }
+}
@@ -1,86 +1,51 @@
 package com.example.testassignment.validation;
 
+import com.example.testassignment.datafilters.BirthdayRangeFiltering;
 import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.helper.EpochDays;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.regex.Pattern;
-
 @Component
 public class BirthdayValidator {
-    private final static String DATE_FORMAT = "yyyy-MM-dd";
-    private final static String DATE_PATTERN = "\\d{4}-\\d{2}-\\d{2}";
 
     @Value("${user.age.min}")
-    private Integer minUserAge;
-
-    public void validate(String birthday) {
-        validateFormat(birthday);
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-        try {
-            var date = dateFormat.parse(birthday);
+    private int minUserAge;
 
-            if (date.after(new Date())) {
-                throw new InvalidDataException("birthday should not be less than today");
-            }
-
-            if (!isAgeValid(date)) {
-                throw new InvalidDataException("user should be older");
-            }
-        } catch (ParseException e) {
-            throw new InvalidDataException("birthday format should be " + DATE_FORMAT);
-        }
-    }
+    /**
+     * Validates the birthday and returns it as an epoch day.
+     */
+    public int validate(String birthday) {
+        var date = parse(birthday);
+        var today = EpochDays.today();
 
-    public void validateDateRanges(String birthdayFrom, String birthdayTo) {
-        validateFormat(birthdayFrom);
-        validateFormat(birthdayTo);
-        if (birthdayFrom == null || birthdayTo == null) {
-            return;
+        if (date > today) {
+            throw new InvalidDataException("birthday should not be less than today");
         }
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-        try {
-            var date1 = dateFormat.parse(birthdayFrom);
-            var date2 = dateFormat.parse(birthdayTo);
 
-            if (date1.equals(date2) || date1.after(date2)) {
-                throw new InvalidDataException("birthdayTo is less than birthdayFrom ");
-            }
-        } catch (ParseException e) {
-            throw new InvalidDataException("birthday format should be " + DATE_FORMAT);
+        if (EpochDays.yearsBetween(date, today) < minUserAge) {
+            throw new InvalidDataException("user should be older");
         }
-
-
+        return date;
     }
 
-    private void validateFormat(String date) {
-        if (date == null) {
-            return;
-        }
-        var pattern = Pattern.compile(DATE_PATTERN);
-        var matcher = pattern.matcher(date);
-
-        if (!matcher.matches()) {
-            throw new InvalidDataException("birthday format should be " + DATE_FORMAT);
+    /**
+     * Validates the optional bounds of a birthday range and returns the parsed range.
+     */
+    public BirthdayRangeFiltering validateDateRanges(String birthdayFrom, String birthdayTo) {
+        var from = birthdayFrom == null ? EpochDays.NONE : parse(birthdayFrom);
+        var to = birthdayTo == null ? EpochDays.NONE : parse(birthdayTo);
+        if (from != EpochDays.NONE && to != EpochDays.NONE && from >= to) {
+            throw new InvalidDataException("birthdayTo is less than birthdayFrom ");
         }
+        return new BirthdayRangeFiltering(from, to);
     }
 
-    private boolean isAgeValid(Date date) {
-        var birthday = Calendar.getInstance();
-        birthday.setTime(date);
-        var now = Calendar.getInstance();
-        var age = now.get(Calendar.YEAR) - birthday.get(Calendar.YEAR);
-        if (birthday.get(Calendar.MONTH) > now.get(Calendar.MONTH) ||
-                (birthday.get(Calendar.MONTH) == now.get(Calendar.MONTH) &&
-                        birthday.get(Calendar.DAY_OF_MONTH) > now.get(Calendar.DAY_OF_MONTH))) {
-            age--;
+    private static int parse(String birthday) {
+        var date = EpochDays.parse(birthday);
+        if (date == EpochDays.NONE) {
+            throw new InvalidDataException("birthday format should be " + EpochDays.FORMAT);
         }
-
-        return age >= minUserAge;
+        return date;
     }
 }
@@ -0,0 +1,72 @@
+package com.example.testassignment.controllers;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactiveUserControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void shouldCreateAndReturnUser() {
+        webTestClient.post().uri("/api/v1/users")
+                .bodyValue(new UserPayload("First", "Last", "user@example.com", "1990-05-01"))
+                .exchange()
+                .expectStatus().isOk();
+        var id = userRepository.findAfter(0).mapToInt(User::getId).max().orElseThrow();
+
+        webTestClient.get().uri("/api/v1/users/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.firstName").isEqualTo("First")
+                .jsonPath("$.data.birthday").isEqualTo("1990-05-01");
+    }
+
+    @Test
+    public void shouldValidateLikeServletController() {
+        webTestClient.post().uri("/api/v1/users")
+                .bodyValue(new UserPayload("First", "Last", "not an email", "1990-05-01"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("email is invalid");
+    }
+
+    @Test
+    public void shouldReturnNotFoundForMissingUser() {
+        webTestClient.get().uri("/api/v1/users/{id}", Integer.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void shouldStreamUsersAsNdjson() {
+        webTestClient.post().uri("/api/v1/users")
+                .bodyValue(new UserPayload("First", "Last", "stream@example.com", "1990-05-01"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/v1/users?limit=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Map.class).hasSize(1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.datafilters.BirthdayRangeFiltering;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.EpochDays;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.ConcurrentUserRepository;
+import com.example.testassignment.repositories.ReactiveUserRepositoryAdapter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.stream.IntStream;
+
+public class ReactiveUserServiceTest {
+    private ConcurrentUserRepository repository;
+    private ReactiveUserService userService;
+
+    @BeforeEach
+    public void before() {
+        repository = new ConcurrentUserRepository();
+        userService = new ReactiveUserServiceImpl(new ReactiveUserRepositoryAdapter(repository));
+        IntStream.rangeClosed(1, 10).forEach(i -> repository.create(
+                new User(0, "First" + i, "Last" + i, "user" + i + "@example.com").toBuilder()
+                        .birthday(EpochDays.parse("1990-01-" + (10 + i)))
+                        .build()));
+    }
+
+    @Test
+    public void shouldPullOnlyRequestedUsers() {
+        StepVerifier.create(userService.getAllUsers(null), 2)
+                .expectNextMatches(user -> user.getId() == 1)
+                .expectNextMatches(user -> user.getId() == 2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void shouldReadOffSubscribingThread() {
+        StepVerifier.create(userService.getUser(1).map(user -> Thread.currentThread().getName()))
+                .expectNextMatches(thread -> thread.startsWith("boundedElastic"))
+                .verifyComplete();
+        StepVerifier.create(userService.getAllUsers(null).take(1).map(user -> Thread.currentThread().getName()))
+                .expectNextMatches(thread -> thread.startsWith("boundedElastic"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldPageBirthdayRange() {
+        var filter = new UserListFiltering(new BirthdayRangeFiltering("1990-01-12", "1990-01-20"),
+                new PaginationParams(1, 2));
+
+        StepVerifier.create(userService.getAllUsers(filter).map(User::getId))
+                .expectNext(4, 5)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSignalInvalidCursor() {
+        var filter = new UserListFiltering(null, new PaginationParams(0, 2, "not a cursor"));
+
+        StepVerifier.create(userService.getAllUsers(filter))
+                .verifyError();
+    }
+
+    @Test
+    public void shouldCreateUser() {
+        var payload = new UserPayload("First", "Last", "user@example.com", "1990-05-01");
+
+        StepVerifier.create(userService.createUser(payload)).verifyComplete();
+
+        Assertions.assertEquals("First", repository.find(11).orElseThrow().getFirstName());
+    }
+
+    @Test
+    public void shouldPatchUser() {
+        var updates = new UpdateUserPayload();
+        updates.setLastName("Other");
+
+        StepVerifier.create(userService.updateUser(1, updates, User.ANY_VERSION)).verifyComplete();
+
+        var user = repository.find(1).orElseThrow();
+        Assertions.assertEquals("Other", user.getLastName());
+        Assertions.assertEquals("First1", user.getFirstName());
+        Assertions.assertEquals(2, user.getVersion());
+    }
+
+    @Test
+    public void shouldRejectPatchOfAnotherVersion() {
+        StepVerifier.create(userService.updateUser(1, new UpdateUserPayload(), 5))
+                .verifyError(VersionConflictException.class);
+    }
+
+    @Test
+    public void shouldSignalMissingUser() {
+        StepVerifier.create(userService.deleteUser(100))
+                .verifyError(NoSuchUserException.class);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.testassignment.controllers;
+
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.dto.BatchCreateResultDto;
+import com.example.testassignment.dto.BatchItemErrorDto;
+import com.example.testassignment.dto.UserDto;
+import com.example.testassignment.dto.UsersListDto;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.servise.ReactiveUserService;
+import com.example.testassignment.validation.BirthdayValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The user API on WebFlux, run with the {@code reactive} Maven profile. Request
+ * validation and error responses are the ones of {@link UserController}; the
+ * NDJSON listing is written as the client reads it, pulling one user from the
+ * repository per demanded element.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("api/v1/users")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+    private final BirthdayValidator birthdayValidator;
+    private final Validator validator;
+
+    @GetMapping
+    public Mono<UsersListDto> getAllUsers(@RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(defaultValue = "0") int offset,
+                                          @RequestParam(defaultValue = "0") int limit,
+                                          @RequestParam(required = false) String after) {
+        var filtering = UserRequests.filtering(birthdayValidator, from, to, offset, limit, after);
+        return userService.getAllUsers(filtering)
+                .collectList()
+                .map(users -> new UsersListDto(users, PageCursor.next(filtering, users)));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<User> streamUsers(@RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  @RequestParam(defaultValue = "0") int offset,
+                                  @RequestParam(defaultValue = "0") int limit,
+                                  @RequestParam(required = false) String after) {
+        var filtering = UserRequests.filtering(birthdayValidator, from, to, offset, limit, after);
+        return userService.getAllUsers(filtering);
+    }
+
+    @GetMapping("/{userId}")
+    public Mono<UserDto> getUser(@PathVariable("userId") int id) {
+        return userService.getUser(id)
+                .switchIfEmpty(Mono.error(NoSuchUserException::new))
+                .map(UserDto::new);
+    }
+
+    @PostMapping
+    public Mono<Void> addUser(@RequestBody UserPayload userPayload) {
+        validate(userPayload);
+        birthdayValidator.validate(userPayload.getBirthday());
+        return userService.createUser(userPayload);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BatchCreateResultDto> addUsers(@RequestBody List<UserPayload> userPayloads) {
+        List<BatchItemErrorDto> errors = new ArrayList<>();
+        var validPayloads = UserRequests.validPayloads(validator, birthdayValidator, userPayloads, errors);
+        if (validPayloads.isEmpty()) {
+            return Mono.just(new BatchCreateResultDto(List.of(), errors));
+        }
+        return userService.createUsers(List.copyOf(validPayloads.values()))
+                .map(created -> UserRequests.batchResult(List.copyOf(validPayloads.keySet()), created, errors));
+    }
+
+    @DeleteMapping("/{userId}")
+    public Mono<Void> deleteUser(@PathVariable("userId") int id) {
+        return userService.deleteUser(id);
+    }
+
+    @PutMapping("/{userId}")
+    public Mono<Void> updateUser(@PathVariable("userId") int id,
+                                 @RequestBody UserPayload userPayload,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        validate(userPayload);
+        birthdayValidator.validate(userPayload.getBirthday());
+        return userService.updateUser(id, userPayload, UserRequests.expectedVersion(ifMatch));
+    }
+
+    @PatchMapping("/{userId}")
+    public Mono<Void> updatePartiallyUser(@PathVariable("userId") int userId,
+                                          @RequestBody UpdateUserPayload userPayload,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        validate(userPayload);
+        if (userPayload.getBirthday() != null) {
+            birthdayValidator.validate(userPayload.getBirthday());
+        }
+        return userService.updateUser(userId, userPayload, UserRequests.expectedVersion(ifMatch));
+    }
+
+    private void validate(Object payload) {
+        var errorMessage = validator.validate(payload)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .findAny();
+        if (errorMessage.isPresent()) {
+            throw new InvalidDataException(errorMessage.get());
+        }
+    }
+}
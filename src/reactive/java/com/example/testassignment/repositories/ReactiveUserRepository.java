@@ -0,0 +1,53 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository}: the same queries and writes,
+ * with results delivered as they are requested.
+ */
+public interface ReactiveUserRepository {
+
+    /**
+     * See {@link UserRepository#version()}.
+     */
+    Mono<Long> version();
+
+    Mono<User> find(int id);
+
+    /**
+     * Users with an id greater than {@code afterId}, in id order.
+     */
+    Flux<User> findAfter(int afterId);
+
+    /**
+     * See {@link UserRepository#findByBirthdayRange(int, int)}.
+     */
+    Flux<User> findByBirthdayRange(int from, int to);
+
+    /**
+     * See {@link UserRepository#findByBirthdayRange(int, int, int, int)}.
+     */
+    Flux<User> findByBirthdayRange(int from, int to, int afterBirthday, int afterId);
+
+    /**
+     * Stores the user and emits it with its assigned id.
+     */
+    Mono<User> create(User user);
+
+    /**
+     * See {@link UserRepository#createAll(List)}.
+     */
+    Mono<CreatedUsers> createAll(List<User> users);
+
+    /**
+     * See {@link UserRepository#update(User, long)}.
+     */
+    Mono<Void> update(User user, long expectedVersion);
+
+    Mono<Void> delete(User user);
+}
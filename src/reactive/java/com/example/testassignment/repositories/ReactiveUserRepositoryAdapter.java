@@ -0,0 +1,81 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * {@link ReactiveUserRepository} over the configured {@link UserRepository}. Reads
+ * and writes run on the bounded elastic scheduler, as the repositories may block:
+ * listings wait for a snapshot still loading, lookups take a lock a writer may
+ * hold across a journal fsync, and listeners (the journal) write to disk. Listings
+ * are pulled from the repository stream one user per request signal. Only the
+ * version, an atomic read, stays on the subscribing thread.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveUserRepositoryAdapter implements ReactiveUserRepository {
+    private final UserRepository userRepository;
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    @Override
+    public Mono<Long> version() {
+        return Mono.fromSupplier(userRepository::version);
+    }
+
+    @Override
+    public Mono<User> find(int id) {
+        return Mono.fromSupplier(() -> userRepository.find(id).orElse(null))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<User> findAfter(int afterId) {
+        return Flux.fromStream(() -> userRepository.findAfter(afterId))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<User> findByBirthdayRange(int from, int to) {
+        return Flux.fromStream(() -> userRepository.findByBirthdayRange(from, to))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<User> findByBirthdayRange(int from, int to, int afterBirthday, int afterId) {
+        return Flux.fromStream(() -> userRepository.findByBirthdayRange(from, to, afterBirthday, afterId))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<User> create(User user) {
+        return Mono.fromCallable(() -> {
+            userRepository.create(user);
+            return user;
+        }).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<CreatedUsers> createAll(List<User> users) {
+        return Mono.fromCallable(() -> userRepository.createAll(users))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> update(User user, long expectedVersion) {
+        return Mono.<Void>fromRunnable(() -> userRepository.update(user, expectedVersion))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> delete(User user) {
+        return Mono.<Void>fromRunnable(() -> userRepository.delete(user))
+                .subscribeOn(scheduler);
+    }
+}
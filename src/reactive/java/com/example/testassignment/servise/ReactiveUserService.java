@@ -0,0 +1,53 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.CreatedUsers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link UserService}; failures are signalled with the same
+ * exceptions.
+ */
+public interface ReactiveUserService {
+
+    /**
+     * Users matching {@code filter}, pulled from the repository as the subscriber
+     * requests them.
+     */
+    Flux<User> getAllUsers(UserListFiltering filter);
+
+    Mono<User> getUser(int id);
+
+    Mono<Long> getVersion();
+
+    Mono<Void> createUser(UserPayload userPayload);
+
+    /**
+     * See {@link UserService#createUsers(List)}.
+     */
+    Mono<CreatedUsers> createUsers(List<UserPayload> userPayloads);
+
+    Mono<Void> deleteUser(int id);
+
+    /**
+     * See {@link UserService#updateUser(int, UserPayload, long)}.
+     *
+     * @throws VersionConflictException as error signal
+     */
+    Mono<Void> updateUser(int id, UserPayload userPayload, long expectedVersion);
+
+    /**
+     * See {@link UserService#updateUser(int, UpdateUserPayload, long)}; without an
+     * expected version a user changed in between is patched again.
+     *
+     * @throws VersionConflictException as error signal
+     */
+    Mono<Void> updateUser(int id, UpdateUserPayload userUpdates, long expectedVersion);
+}
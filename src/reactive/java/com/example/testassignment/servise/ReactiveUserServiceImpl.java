@@ -0,0 +1,135 @@
+package com.example.testassignment.servise;
+
+import com.example.testassignment.datafilters.BirthdayRangeFiltering;
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.UserMapper;
+import com.example.testassignment.helper.UserPatcher;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.CreatedUsers;
+import com.example.testassignment.repositories.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    private final ReactiveUserRepository userRepository;
+
+    @Override
+    public Flux<User> getAllUsers(UserListFiltering filter) {
+        return Flux.defer(() -> {
+            if (filter == null) {
+                return userRepository.findAfter(0);
+            }
+            Flux<User> users;
+            if (isCursorPage(filter)) {
+                users = findAfter(filter.getRange(), PageCursor.decode(filter.getPagination().getAfter()));
+            } else if (isRangeFiltered(filter)) {
+                users = userRepository.findByBirthdayRange(filter.getRange().getFrom(), filter.getRange().getTo());
+            } else {
+                users = userRepository.findAfter(0);
+            }
+            return page(users, filter.getPagination());
+        });
+    }
+
+    private static boolean isCursorPage(UserListFiltering filter) {
+        return filter.getPagination() != null && filter.getPagination().getAfter() != null;
+    }
+
+    private static boolean isRangeFiltered(UserListFiltering filter) {
+        return filter.getRange() != null && filter.getRange().hasBounds();
+    }
+
+    private Flux<User> findAfter(BirthdayRangeFiltering range, PageCursor cursor) {
+        var byBirthday = range != null && range.hasBounds();
+        if (byBirthday != cursor.isBirthdayOrdered()) {
+            throw new InvalidDataException("Cursor does not match the filter");
+        }
+        if (byBirthday) {
+            return userRepository.findByBirthdayRange(range.getFrom(), range.getTo(),
+                    cursor.birthday(), cursor.id());
+        }
+        return userRepository.findAfter(cursor.id());
+    }
+
+    private static Flux<User> page(Flux<User> users, PaginationParams pagination) {
+        if (pagination == null) {
+            return users;
+        }
+        var paged = users.skip(pagination.getOffset());
+        return pagination.getLimit() == 0 ? paged : paged.take(pagination.getLimit());
+    }
+
+    @Override
+    public Mono<User> getUser(int id) {
+        return userRepository.find(id);
+    }
+
+    @Override
+    public Mono<Long> getVersion() {
+        return userRepository.version();
+    }
+
+    @Override
+    public Mono<Void> createUser(UserPayload userPayload) {
+        return Mono.fromSupplier(() -> UserMapper.toUser(userPayload))
+                .flatMap(userRepository::create)
+                .then();
+    }
+
+    @Override
+    public Mono<CreatedUsers> createUsers(List<UserPayload> userPayloads) {
+        return Mono.fromSupplier(() -> userPayloads.stream().map(UserMapper::toUser).toList())
+                .flatMap(userRepository::createAll);
+    }
+
+    @Override
+    public Mono<Void> deleteUser(int id) {
+        return userRepository.find(id)
+                .switchIfEmpty(Mono.error(NoSuchUserException::new))
+                .flatMap(userRepository::delete);
+    }
+
+    @Override
+    public Mono<Void> updateUser(int id, UserPayload userPayload, long expectedVersion) {
+        return userRepository.find(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchUserException("User doesn't exist")))
+                .flatMap(existUser -> {
+                    User user = UserMapper.toUser(userPayload);
+                    user.setId(existUser.getId());
+                    return userRepository.update(user, expectedVersion);
+                });
+    }
+
+    @Override
+    public Mono<Void> updateUser(int id, UpdateUserPayload userUpdates, long expectedVersion) {
+        return userRepository.find(id)
+                .switchIfEmpty(Mono.error(NoSuchUserException::new))
+                .flatMap(foundUser -> {
+                    if (expectedVersion != User.ANY_VERSION && foundUser.getVersion() != expectedVersion) {
+                        return Mono.error(new VersionConflictException("User has version " + foundUser.getVersion()));
+                    }
+                    User patchedUser = foundUser.toBuilder()
+                            .address(UserMapper.copy(foundUser.getAddress()))
+                            .build();
+                    UserPatcher.apply(patchedUser, userUpdates);
+                    return userRepository.update(patchedUser, foundUser.getVersion());
+                })
+                // changed after it was read; patch the current user again
+                .retryWhen(Retry.indefinitely()
+                        .filter(e -> expectedVersion == User.ANY_VERSION && e instanceof VersionConflictException));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.testassignment.cache;
+
+import com.example.testassignment.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class UserJsonCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void shouldServeSameInstanceFromCache() {
+        var cache = new UserJsonCache(new ObjectMapper(), 10, meterRegistry);
+        var user = new User(1, "First", "Last", "user@example.com");
+
+        var json = cache.get(user);
+
+        Assertions.assertSame(json, cache.get(user));
+        Assertions.assertTrue(new String(json, StandardCharsets.UTF_8).startsWith("{\"data\":{\"id\":1,"));
+        Assertions.assertEquals(1, requests("hit"));
+        Assertions.assertEquals(1, requests("miss"));
+    }
+
+    @Test
+    public void shouldNotServeBytesOfAnotherInstance() {
+        var cache = new UserJsonCache(new ObjectMapper(), 10, meterRegistry);
+        var user = new User(1, "First", "Last", "user@example.com");
+        cache.get(user);
+
+        var updated = user.toBuilder().lastName("Other").build();
+
+        Assertions.assertTrue(new String(cache.get(updated), StandardCharsets.UTF_8).contains("Other"));
+        Assertions.assertEquals(2, requests("miss"));
+    }
+
+    @Test
+    public void shouldDropEntriesOfChangedUsers() {
+        var cache = new UserJsonCache(new ObjectMapper(), 10, meterRegistry);
+        var user = new User(1, "First", "Last", "user@example.com");
+        var other = new User(2, "First", "Last", "other@example.com");
+        cache.get(user);
+        cache.get(other);
+
+        cache.onUpdate(user, user.toBuilder().build());
+        cache.onDelete(other);
+
+        Assertions.assertEquals(0, meterRegistry.get("user.cache.size").gauge().value());
+    }
+
+    @Test
+    public void shouldEvictBeyondMaxEntries() {
+        var cache = new UserJsonCache(new ObjectMapper(), 100, meterRegistry);
+        for (int id = 1; id <= 1000; id++) {
+            cache.get(new User(id, "First", "Last", "user@example.com"));
+        }
+
+        Assertions.assertTrue(meterRegistry.get("user.cache.size").gauge().value() <= 100);
+        Assertions.assertEquals(900, meterRegistry.get("user.cache.evictions").counter().count());
+    }
+
+    @Test
+    public void shouldOnlySerializeWhenDisabled() {
+        var cache = new UserJsonCache(new ObjectMapper(), 0, meterRegistry);
+        var user = new User(1, "First", "Last", "user@example.com");
+
+        Assertions.assertNotSame(cache.get(user), cache.get(user));
+        Assertions.assertEquals(0, meterRegistry.get("user.cache.size").gauge().value());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("user.cache.requests").tag("result", result).counter().count();
+    }
+}
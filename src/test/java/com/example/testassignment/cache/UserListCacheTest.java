@@ -0,0 +1,94 @@
+package com.example.testassignment.cache;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class UserListCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Test
+    public void shouldServeSameFilterAtSameVersion() {
+        var cache = new UserListCache(10, meterRegistry);
+        var users = List.of(new User(1, "First", "Last", "user@example.com"));
+
+        var first = cache.get(new UserListFiltering(null, new PaginationParams(0, 10)), 1, () -> query(users));
+        var second = cache.get(new UserListFiltering(null, new PaginationParams(0, 10)), 1, () -> query(users));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, queries.get());
+        Assertions.assertEquals(1, requests("hit"));
+    }
+
+    @Test
+    public void shouldTreatMissingFilterAsEmptyFilter() {
+        var cache = new UserListCache(10, meterRegistry);
+
+        cache.get(null, 1, () -> query(List.of()));
+        cache.get(new UserListFiltering(), 1, () -> query(List.of()));
+
+        Assertions.assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void shouldKeepAddressFiltersApart() {
+        var cache = new UserListCache(10, meterRegistry);
+
+        cache.get(new UserListFiltering(null, null, new AddressFiltering("Ukraine", null, null)), 1,
+                () -> query(List.of()));
+        cache.get(new UserListFiltering(null, null, new AddressFiltering("Poland", null, null)), 1,
+                () -> query(List.of()));
+
+        Assertions.assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void shouldQueryAgainAfterWrite() {
+        var cache = new UserListCache(10, meterRegistry);
+        cache.get(null, 1, () -> query(List.of()));
+
+        var users = cache.get(null, 2, () -> query(List.of(new User())));
+
+        Assertions.assertEquals(1, users.size());
+        Assertions.assertEquals(2, requests("miss"));
+    }
+
+    @Test
+    public void shouldEvictBeyondMaxEntries() {
+        var cache = new UserListCache(10, meterRegistry);
+        for (int offset = 0; offset < 100; offset++) {
+            cache.get(new UserListFiltering(null, new PaginationParams(offset, 10)), 1, () -> query(List.of()));
+        }
+
+        Assertions.assertTrue(meterRegistry.get("user.list-cache.size").gauge().value() <= 10);
+        Assertions.assertEquals(90, meterRegistry.get("user.list-cache.evictions").counter().count());
+    }
+
+    @Test
+    public void shouldAlwaysQueryWhenDisabled() {
+        var cache = new UserListCache(0, meterRegistry);
+
+        cache.get(null, 1, () -> query(List.of()));
+        cache.get(null, 1, () -> query(List.of()));
+
+        Assertions.assertEquals(2, queries.get());
+    }
+
+    private List<User> query(List<User> users) {
+        queries.incrementAndGet();
+        return users;
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("user.list-cache.requests").tag("result", result).counter().count();
+    }
+}
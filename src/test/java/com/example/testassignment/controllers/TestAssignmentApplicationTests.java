@@ -1,12 +1,24 @@
 package com.example.testassignment.controllers;
 
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserFilter;
 import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.dto.QueryPlanDto;
 import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.DuplicateEmailException;
 import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.EpochDays;
 import com.example.testassignment.payload.UpdateUserPayload;
 import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.repositories.CreatedUsers;
 import com.example.testassignment.servise.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,13 +28,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -65,6 +85,139 @@ class TestAssignmentApplicationTests {
                 .andExpect(jsonPath("$.data[1].lastName", is("LAST_NAME_2")));
     }
 
+    @Test
+    public void shouldReturnNextCursorWhenPageIsFull() throws Exception {
+        List<User> users = generateUserList();
+        Mockito.when(userService.getAllUsers(any(UserListFiltering.class))).thenReturn(users);
+
+        this.mockMvc.perform(get("/api/v1/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.next", is(new PageCursor(EpochDays.NONE, 1).encode())));
+    }
+
+    @Test
+    public void shouldPassAddressFilterToService() throws Exception {
+        var address = new AddressFiltering("Ukraine", "Kyiv", 1001);
+        Mockito.when(userService.getAllUsers(argThat(filtering -> address.equals(filtering.getAddress()))))
+                .thenReturn(generateUserList());
+
+        this.mockMvc.perform(get("/api/v1/users")
+                        .param("country", "Ukraine")
+                        .param("city", "Kyiv")
+                        .param("zipCode", "1001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)));
+    }
+
+    @Test
+    public void shouldPassParsedFilterToService() throws Exception {
+        var where = UserFilter.parse("lastName:smi* OR city:Kyiv");
+        Mockito.when(userService.getAllUsers(argThat(filtering -> where.equals(filtering.getWhere()))))
+                .thenReturn(generateUserList());
+
+        this.mockMvc.perform(get("/api/v1/users").param("filter", "lastName:smi* OR city:Kyiv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)));
+    }
+
+    @Test
+    public void shouldRejectInvalidFilter() throws Exception {
+        this.mockMvc.perform(get("/api/v1/users").param("filter", "nickname:x"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field nickname"));
+    }
+
+    @Test
+    public void shouldPassSortToServiceWithoutNextCursor() throws Exception {
+        var sort = new UserSort(UserField.LAST_NAME, true);
+        Mockito.when(userService.getAllUsers(argThat(filtering -> sort.equals(filtering.getSort()))))
+                .thenReturn(generateUserList());
+
+        this.mockMvc.perform(get("/api/v1/users").param("sort", "lastName,DESC").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    public void shouldRejectInvalidSort() throws Exception {
+        this.mockMvc.perform(get("/api/v1/users").param("sort", "lastName,up"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid sort direction up"));
+    }
+
+    @Test
+    public void shouldServeUserCountsRatherThanUserById() throws Exception {
+        this.mockMvc.perform(get("/api/v1/users/counts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").isNumber())
+                .andExpect(jsonPath("$.byCountry").isMap());
+    }
+
+    @Test
+    public void shouldExplainListing() throws Exception {
+        Mockito.when(userService.explainUsers(any(UserListFiltering.class)))
+                .thenReturn(new QueryPlanDto("address index on city:Kyiv", "lastName:smi*", null, 12L,
+                        List.of("address index: 12 rows"), 12, 3));
+
+        this.mockMvc.perform(get("/api/v1/users")
+                        .param("filter", "city:Kyiv lastName:smi*")
+                        .param("explain", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.access", is("address index on city:Kyiv")))
+                .andExpect(jsonPath("$.rowsExamined", is(12)))
+                .andExpect(jsonPath("$.sort").doesNotExist());
+    }
+
+    @Test
+    public void shouldNotCombineOffsetWithCursor() throws Exception {
+        this.mockMvc.perform(get("/api/v1/users")
+                        .param("offset", "2")
+                        .param("after", new PageCursor(EpochDays.NONE, 1).encode()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("offset can't be combined with after"));
+    }
+
+    @Test
+    public void shouldStreamUsersAsNdjson() throws Exception {
+        Mockito.when(userService.streamUsers(any(UserListFiltering.class)))
+                .thenReturn(generateUserList().stream());
+
+        var result = this.mockMvc.perform(get("/api/v1/users").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // user.stream.timeout rather than the default of the other endpoints
+        Assertions.assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+
+        var lines = this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .lines()
+                .toList();
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).contains("\"firstName\":\"FIRST_NAME_1\""));
+        Assertions.assertTrue(lines.get(1).contains("\"firstName\":\"FIRST_NAME_2\""));
+    }
+
+    @Test
+    public void shouldStreamUsersAsJsonDocument() throws Exception {
+        Mockito.when(userService.streamUsers(any(UserListFiltering.class)))
+                .thenReturn(generateUserList().stream());
+
+        var result = this.mockMvc.perform(get("/api/v1/users").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[1].lastName", is("LAST_NAME_2")));
+    }
+
     @Test
     public void shouldFindUserById() throws Exception {
         var user = User.builder()
@@ -80,6 +233,89 @@ class TestAssignmentApplicationTests {
                 .andExpect(jsonPath("$.data.lastName", is("LAST_NAME_1")));
     }
 
+    @Test
+    public void shouldWriteBirthdayAsDate() throws Exception {
+        var user = User.builder()
+                .id(1)
+                .firstName("FIRST_NAME_1")
+                .lastName("LAST_NAME_1")
+                .birthday(EpochDays.parse("1990-10-21"))
+                .build();
+        Mockito.when(userService.getUser(1)).thenReturn(Optional.of(user));
+        this.mockMvc.perform(get("/api/v1/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.birthday", is("1990-10-21")));
+    }
+
+    @Test
+    public void shouldNotReturnUnmodifiedUser() throws Exception {
+        var user = User.builder()
+                .id(1)
+                .firstName("FIRST_NAME_1")
+                .lastName("LAST_NAME_1")
+                .version(3)
+                .build();
+        Mockito.when(userService.getUser(1)).thenReturn(Optional.of(user));
+        this.mockMvc.perform(get("/api/v1/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", UserRequests.etag(3)));
+        this.mockMvc.perform(get("/api/v1/users/1")
+                        .header("If-None-Match", UserRequests.etag(3)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void shouldNotListUsersWhenVersionIsUnchanged() throws Exception {
+        Mockito.when(userService.getVersion()).thenReturn(7L);
+        this.mockMvc.perform(get("/api/v1/users")
+                        .header("If-None-Match", UserRequests.etag(7)))
+                .andExpect(status().isNotModified());
+        Mockito.verify(userService, Mockito.never()).getAllUsers(any());
+    }
+
+    @Test
+    public void shouldNotMatchVersionOfEarlierRun() throws Exception {
+        Mockito.when(userService.getVersion()).thenReturn(7L);
+        this.mockMvc.perform(get("/api/v1/users")
+                        .header("If-None-Match", "\"7\""))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put("/api/v1/users/1")
+                        .header("If-Match", "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(generateValidUserPayload())))
+                .andExpect(status().isPreconditionFailed());
+        Mockito.verify(userService, Mockito.never()).updateUser(anyInt(), any(UserPayload.class), anyLong());
+    }
+
+    @Test
+    public void shouldUpdateUserIfVersionMatches() throws Exception {
+        UserPayload userPayload = generateValidUserPayload();
+        this.mockMvc.perform(put("/api/v1/users/1")
+                        .header("If-Match", UserRequests.etag(4))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(userPayload)))
+                .andExpect(status().isOk());
+        Mockito.verify(userService).updateUser(1, userPayload, 4L);
+    }
+
+    @Test
+    public void shouldRejectUpdateOfChangedUser() throws Exception {
+        var userPayload = generateUserPayloadWithRequiredFields();
+        Mockito.doThrow(new VersionConflictException("User has version 5"))
+                .when(userService).updateUser(1, userPayload, 4L);
+        this.mockMvc.perform(patch("/api/v1/users/1")
+                        .header("If-Match", UserRequests.etag(4))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(userPayload)))
+                .andExpect(status().isPreconditionFailed());
+        this.mockMvc.perform(patch("/api/v1/users/1")
+                        .header("If-Match", "W/" + UserRequests.etag(4))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(userPayload)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     public void shouldDeleteUserById() throws Exception {
         Mockito.doThrow(new NoSuchUserException()).when(userService).deleteUser(1);
@@ -108,6 +344,50 @@ class TestAssignmentApplicationTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldNotAddUserWithTakenEmail() throws Exception {
+        UserPayload userPayload = generateValidUserPayload();
+        Mockito.doThrow(new DuplicateEmailException("User with email " + userPayload.getEmail() + " already exists"))
+                .when(userService).createUser(userPayload);
+        this.mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(userPayload)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", containsString("already exists")));
+    }
+
+    @Test
+    public void shouldFindUserByEmail() throws Exception {
+        var user = User.builder()
+                .id(1)
+                .firstName("FIRST_NAME_1")
+                .lastName("LAST_NAME_1")
+                .email("first@example.com")
+                .build();
+        Mockito.when(userService.getUserByEmail("First@Example.com")).thenReturn(Optional.of(user));
+        this.mockMvc.perform(get("/api/v1/users/email/First@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id", is(1)));
+        this.mockMvc.perform(get("/api/v1/users/email/other@example.com"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldSearchUsersWithCursor() throws Exception {
+        List<User> users = generateUserList();
+        Mockito.when(userService.searchUsers(eq("last"), eq(true), any(PaginationParams.class))).thenReturn(users);
+
+        this.mockMvc.perform(get("/api/v1/users/search")
+                        .param("q", "last")
+                        .param("fuzzy", "true")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.next", is(new PageCursor(EpochDays.NONE, 1).encode())));
+        this.mockMvc.perform(get("/api/v1/users/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void shouldNotAddUserIfFirstNameNotDefined() throws Exception {
         UserPayload userPayload = generateValidUserPayload();
@@ -180,6 +460,138 @@ class TestAssignmentApplicationTests {
                         .value("birthday format should be yyyy-MM-dd"));;
     }
 
+    @Test
+    public void shouldAddValidUsersInBatchAndReportInvalidOnes() throws Exception {
+        var validUser = generateValidUserPayload();
+        var userWithoutEmail = generateValidUserPayload();
+        userWithoutEmail.setEmail(null);
+        var tooYoungUser = generateValidUserPayload();
+        tooYoungUser.setBirthday(LocalDate.now().minusYears(1).toString());
+        var createdUser = User.builder().id(7).build();
+        Mockito.when(userService.createUsers(List.of(validUser))).thenReturn(new CreatedUsers(List.of(createdUser), Map.of()));
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(List.of(validUser, userWithoutEmail, tooYoungUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", hasSize(1)))
+                .andExpect(jsonPath("$.created[0]", is(7)))
+                .andExpect(jsonPath("$.errors", hasSize(2)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)))
+                .andExpect(jsonPath("$.errors[0].message", is("email is required")))
+                .andExpect(jsonPath("$.errors[1].index", is(2)))
+                .andExpect(jsonPath("$.errors[1].message", is("user should be older")));
+    }
+
+    @Test
+    public void shouldReportUsersOfBatchThatWereNotStored() throws Exception {
+        var invalidUser = generateValidUserPayload();
+        invalidUser.setEmail(null);
+        var validUser = generateValidUserPayload();
+        Mockito.when(userService.createUsers(List.of(validUser, validUser))).thenReturn(new CreatedUsers(
+                List.of(User.builder().id(3).build()), Map.of(0, new IllegalStateException("Can't append"))));
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(List.of(invalidUser, validUser, validUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(List.of(3))))
+                .andExpect(jsonPath("$.errors", hasSize(2)))
+                .andExpect(jsonPath("$.errors[0].index", is(0)))
+                .andExpect(jsonPath("$.errors[1].index", is(1)))
+                .andExpect(jsonPath("$.errors[1].message", is("Can't append")));
+    }
+
+    @Test
+    public void shouldAddUsersInBatchFromNdjson() throws Exception {
+        var validUser = generateValidUserPayload();
+        Mockito.when(userService.createUsers(List.of(validUser, validUser)))
+                .thenReturn(new CreatedUsers(List.of(User.builder().id(1).build(), User.builder().id(2).build()), Map.of()));
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType("application/x-ndjson")
+                        .content(asJsonString(validUser) + "\n" + asJsonString(validUser) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", hasSize(2)))
+                .andExpect(jsonPath("$.errors", hasSize(0)));
+    }
+
+    @Test
+    public void shouldReportNullItemOfBatch() throws Exception {
+        var validUser = generateValidUserPayload();
+        Mockito.when(userService.createUsers(List.of(validUser)))
+                .thenReturn(new CreatedUsers(List.of(User.builder().id(4).build()), Map.of()));
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null, " + asJsonString(validUser) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(List.of(4))))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(0)))
+                .andExpect(jsonPath("$.errors[0].message", is("user is required")));
+    }
+
+    @Test
+    public void shouldAddLargeNdjsonBatchInChunks() throws Exception {
+        var validUser = generateValidUserPayload();
+        var invalidUser = generateValidUserPayload();
+        invalidUser.setEmail(null);
+        Mockito.when(userService.createUsers(any())).thenAnswer(invocation -> new CreatedUsers(
+                invocation.<List<UserPayload>>getArgument(0).stream()
+                        .map(payload -> User.builder().id(1).build())
+                        .toList(),
+                Map.of()));
+        var body = new StringBuilder();
+        for (int i = 0; i < 1500; i++) {
+            body.append(asJsonString(i == 1200 ? invalidUser : validUser)).append('\n');
+        }
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", hasSize(1499)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1200)));
+        Mockito.verify(userService, Mockito.times(2)).createUsers(any());
+    }
+
+    @Test
+    public void shouldRejectNdjsonBatchWithMalformedLineInFirstChunk() throws Exception {
+        var body = asJsonString(generateValidUserPayload()) + "\n{\"firstName\": \n";
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(userService, Mockito.never()).createUsers(any());
+    }
+
+    @Test
+    public void shouldReportMalformedNdjsonLineAfterFirstChunk() throws Exception {
+        var validUser = asJsonString(generateValidUserPayload());
+        Mockito.when(userService.createUsers(any())).thenAnswer(invocation -> new CreatedUsers(
+                invocation.<List<UserPayload>>getArgument(0).stream()
+                        .map(payload -> User.builder().id(1).build())
+                        .toList(),
+                Map.of()));
+        var body = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            body.append(validUser).append('\n');
+        }
+        body.append("not json\n");
+
+        this.mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", hasSize(1200)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1200)))
+                .andExpect(jsonPath("$.errors[0].message", is("Invalid NDJSON line")));
+    }
+
     @Test
     public void shouldUpdateUser() throws Exception {
         UserPayload userPayload = generateValidUserPayload();
@@ -192,7 +604,7 @@ class TestAssignmentApplicationTests {
     @Test
     public void shouldNotUpdateUserIfUserNotExist() throws Exception {
         UserPayload userPayload = generateValidUserPayload();
-        Mockito.doThrow(new NoSuchUserException()).when(userService).updateUser(1, userPayload);
+        Mockito.doThrow(new NoSuchUserException()).when(userService).updateUser(1, userPayload, User.ANY_VERSION);
         this.mockMvc.perform(put("/api/v1/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(userPayload)))
@@ -330,6 +742,43 @@ class TestAssignmentApplicationTests {
                         .value("birthday format should be yyyy-MM-dd"));
     }
 
+    @Test
+    public void shouldMergePatchUser() throws Exception {
+        var user = new User(1, "firstName", "lastName", "email@email.email");
+        user.setBirthday(EpochDays.parse("1970-03-25"));
+        Mockito.doAnswer(invocation -> {
+            invocation.<Consumer<User>>getArgument(2).accept(user);
+            return null;
+        }).when(userService).patchUser(eq(1), eq(User.ANY_VERSION), any());
+
+        this.mockMvc.perform(patch("/api/v1/users/1")
+                        .contentType("application/merge-patch+json")
+                        .content("""
+                                {"lastName":"other","address":{"city":"Kyiv"}}"""))
+                .andExpect(status().isOk());
+
+        Assertions.assertEquals("other", user.getLastName());
+        Assertions.assertEquals("Kyiv", user.getAddress().getCity());
+    }
+
+    @Test
+    public void shouldNotJsonPatchUserIntoInvalidState() throws Exception {
+        var user = new User(1, "firstName", "lastName", "email@email.email");
+        user.setBirthday(EpochDays.parse("1970-03-25"));
+        Mockito.doAnswer(invocation -> {
+            invocation.<Consumer<User>>getArgument(2).accept(user);
+            return null;
+        }).when(userService).patchUser(eq(1), eq(User.ANY_VERSION), any());
+
+        this.mockMvc.perform(patch("/api/v1/users/1")
+                        .contentType("application/json-patch+json")
+                        .content("""
+                                [{"op":"replace","path":"/email","value":"invalid"}]"""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("email is invalid"));
+    }
+
     private List<User> generateUserList() {
         var user1 = User.builder()
                 .id(1)
@@ -0,0 +1,49 @@
+package com.example.testassignment.datafilters;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.helper.EpochDays;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserFilterTest {
+
+    @Test
+    public void shouldParseConditionsWithAndBindingTighterThanOr() {
+        var filter = UserFilter.parse("country:Ukraine lastName:smi* OR birthday:1990-01-01.. AND zipCode:1001");
+
+        assertEquals(new UserFilter.Or(List.of(
+                new UserFilter.And(List.of(
+                        new UserFilter.Equals(UserField.COUNTRY, "Ukraine"),
+                        new UserFilter.Prefix(UserField.LAST_NAME, "smi"))),
+                new UserFilter.And(List.of(
+                        new UserFilter.Range(UserField.BIRTHDAY, EpochDays.parse("1990-01-01"), null),
+                        new UserFilter.Equals(UserField.ZIP_CODE, 1001))))), filter);
+        assertEquals(filter, UserFilter.parse(filter.toString()));
+    }
+
+    @Test
+    public void shouldMatchTextIgnoringCaseAndSurroundingWhitespace() {
+        var user = new User(1, "John", "Van Dyke", "john@example.com");
+        user.setBirthday(EpochDays.parse("1990-05-01"));
+        user.setAddress(new Address(" Ukraine", "Kyiv", "Main", 1, 1001));
+
+        assertTrue(UserFilter.parse("country:ukraine AND lastName:\"van d\"*").test(user));
+        assertTrue(UserFilter.parse("(city:Lviv OR zipCode:1001) birthday:..1990-05-02").test(user));
+        assertFalse(UserFilter.parse("birthday:1990-05-01..").test(user));
+        assertFalse(UserFilter.parse("firstName:jo").test(user));
+    }
+
+    @Test
+    public void shouldRejectInvalidFilters() {
+        assertThrows(InvalidDataException.class, () -> UserFilter.parse("nickname:x"));
+        assertThrows(InvalidDataException.class, () -> UserFilter.parse("(country:Ukraine"));
+        assertThrows(InvalidDataException.class, () -> UserFilter.parse("zipCode:1*"));
+        assertThrows(InvalidDataException.class, () -> UserFilter.parse("birthday:1990-02-30"));
+        assertThrows(InvalidDataException.class, () -> UserFilter.parse("city:Kyiv OR"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.testassignment.helper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+class EpochDaysTest {
+
+    @Test
+    public void shouldParseAndFormatLikeLocalDate() {
+        for (var date = LocalDate.of(1899, 12, 25); date.isBefore(LocalDate.of(2101, 1, 5)); date = date.plusDays(1)) {
+            var text = date.toString();
+            Assertions.assertEquals(date.toEpochDay(), EpochDays.parse(text), text);
+            Assertions.assertEquals(text, EpochDays.format((int) date.toEpochDay()));
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidDates() {
+        Assertions.assertEquals(EpochDays.NONE, EpochDays.parse(null));
+        Assertions.assertEquals(EpochDays.NONE, EpochDays.parse("invalidBirthday"));
+        Assertions.assertEquals(EpochDays.NONE, EpochDays.parse("1990-1-21"));
+        Assertions.assertEquals(EpochDays.NONE, EpochDays.parse("1990-13-01"));
+        Assertions.assertEquals(EpochDays.NONE, EpochDays.parse("1990-02-29"));
+        Assertions.assertEquals(EpochDays.NONE, EpochDays.parse("1990/01/21"));
+        Assertions.assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), EpochDays.parse("2000-02-29"));
+    }
+
+    @Test
+    public void shouldCountFullYears() {
+        var birthday = EpochDays.parse("2000-02-29");
+        Assertions.assertEquals(17, EpochDays.yearsBetween(birthday, EpochDays.parse("2018-02-28")));
+        Assertions.assertEquals(18, EpochDays.yearsBetween(birthday, EpochDays.parse("2018-03-01")));
+        Assertions.assertEquals(LocalDate.now().toEpochDay(), EpochDays.today());
+    }
+
+    @Test
+    public void shouldGoBackWholeYears() {
+        Assertions.assertEquals(EpochDays.parse("2000-03-15"), EpochDays.minusYears(EpochDays.parse("2018-03-15"), 18));
+        Assertions.assertEquals(EpochDays.parse("2017-02-28"), EpochDays.minusYears(EpochDays.parse("2020-02-29"), 3));
+        var cutoff = EpochDays.minusYears(EpochDays.parse("2018-02-28"), 18);
+        Assertions.assertEquals(18, EpochDays.yearsBetween(cutoff, EpochDays.parse("2018-02-28")));
+        Assertions.assertEquals(17, EpochDays.yearsBetween(cutoff + 1, EpochDays.parse("2018-02-28")));
+    }
+}
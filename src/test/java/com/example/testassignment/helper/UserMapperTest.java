@@ -0,0 +1,44 @@
+package com.example.testassignment.helper;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.example.testassignment.payload.UserPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class UserMapperTest {
+
+    @Test
+    public void shouldMapEveryPayloadField() {
+        var payload = new UserPayload("First", "Last", "user@example.com", "1990-10-21");
+        payload.setAddress(new Address("UA", "Kyiv", "Street", 1, 10000));
+        payload.setPhoneNumber("+380 67 123 4567");
+
+        var user = UserMapper.toUser(payload);
+
+        var expected = User.builder()
+                .email("user@example.com")
+                .firstName("First")
+                .lastName("Last")
+                .birthday(EpochDays.parse("1990-10-21"))
+                .address(new Address("UA", "Kyiv", "Street", 1, 10000))
+                .phoneNumber("+380 67 123 4567")
+                .build();
+        Assertions.assertEquals(expected, user);
+        Assertions.assertNotSame(payload.getAddress(), user.getAddress());
+    }
+
+    @Test
+    public void shouldLeaveAbsentUpdateFieldsUnset() {
+        var updates = new UpdateUserPayload();
+        updates.setLastName("Other");
+
+        var user = UserMapper.toUser(updates);
+
+        Assertions.assertEquals("Other", user.getLastName());
+        Assertions.assertNull(user.getFirstName());
+        Assertions.assertNull(user.getAddress());
+        Assertions.assertFalse(user.hasBirthday());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.testassignment.helper;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.payload.UpdateAddressPayload;
+import com.example.testassignment.payload.UpdateUserPayload;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class UserPatcherTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldApplyOnlyPresentFieldsAndMergeAddress() {
+        var user = generateUser();
+        var updates = new UpdateUserPayload();
+        updates.setLastName("Other");
+        updates.setBirthday("1991-01-01");
+        updates.setAddress(new UpdateAddressPayload(null, "Lviv", null, null, 79000));
+
+        UserPatcher.apply(user, updates);
+
+        Assertions.assertEquals("First", user.getFirstName());
+        Assertions.assertEquals("Other", user.getLastName());
+        Assertions.assertEquals(EpochDays.parse("1991-01-01"), user.getBirthday());
+        Assertions.assertEquals(new Address("UA", "Lviv", "Street", 1, 79000), user.getAddress());
+    }
+
+    @Test
+    public void shouldApplyMergePatch() throws Exception {
+        var user = generateUser();
+
+        UserPatcher.mergePatch(user, json("""
+                {"firstName":"Other","phoneNumber":null,"address":{"city":"Lviv","houseNumber":5}}"""));
+
+        Assertions.assertEquals("Other", user.getFirstName());
+        Assertions.assertNull(user.getPhoneNumber());
+        Assertions.assertEquals(new Address("UA", "Lviv", "Street", 5, 10000), user.getAddress());
+    }
+
+    @Test
+    public void shouldNotRemoveRequiredFieldsWithMergePatch() {
+        var user = generateUser();
+
+        var exception = Assertions.assertThrows(InvalidDataException.class,
+                () -> UserPatcher.mergePatch(user, json("""
+                        {"email":null}""")));
+        Assertions.assertEquals("email is required", exception.getMessage());
+    }
+
+    @Test
+    public void shouldApplyJsonPatchOperations() throws Exception {
+        var user = generateUser();
+
+        UserPatcher.jsonPatch(user, json("""
+                [{"op":"test","path":"/firstName","value":"First"},
+                 {"op":"replace","path":"/lastName","value":"Other"},
+                 {"op":"copy","from":"/address/city","path":"/address/street"},
+                 {"op":"remove","path":"/phoneNumber"},
+                 {"op":"add","path":"/birthday","value":"1991-01-01"}]"""));
+
+        Assertions.assertEquals("Other", user.getLastName());
+        Assertions.assertEquals("Kyiv", user.getAddress().getStreet());
+        Assertions.assertNull(user.getPhoneNumber());
+        Assertions.assertEquals(EpochDays.parse("1991-01-01"), user.getBirthday());
+    }
+
+    @Test
+    public void shouldRejectFailedTestAndUnknownPaths() {
+        var user = generateUser();
+
+        Assertions.assertThrows(InvalidDataException.class, () -> UserPatcher.jsonPatch(user, json("""
+                [{"op":"test","path":"/firstName","value":"Other"}]""")));
+        Assertions.assertThrows(InvalidDataException.class, () -> UserPatcher.jsonPatch(user, json("""
+                [{"op":"replace","path":"/password","value":"secret"}]""")));
+        Assertions.assertThrows(InvalidDataException.class, () -> UserPatcher.jsonPatch(user, json("""
+                [{"op":"replace","path":"/id","value":5}]""")));
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
+
+    private static User generateUser() {
+        var user = new User(1, "First", "Last", "user@example.com");
+        user.setBirthday(EpochDays.parse("1990-10-21"));
+        user.setAddress(new Address("UA", "Kyiv", "Street", 1, 10000));
+        user.setPhoneNumber("+1234567890");
+        return user;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.testassignment.metrics;
+
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.payload.UserPayload;
+import com.example.testassignment.servise.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "user.metrics.enabled=true")
+class UserMetricsAspectTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldTimeServiceAndRepositoryCalls() {
+        userService.getAllUsers(new UserListFiltering());
+
+        Assertions.assertEquals(1, meterRegistry.get("user.service")
+                .tag("method", "getAllUsers").tag("exception", "none").timer().count());
+        Assertions.assertTrue(meterRegistry.get("user.repository").timers().stream()
+                .anyMatch(timer -> timer.count() > 0));
+        Assertions.assertEquals(1, meterRegistry.get("user.list.size").summary().count());
+        Assertions.assertNotNull(meterRegistry.get("user.repository.size").gauge());
+    }
+
+    @Test
+    public void shouldTagFailedCallsWithException() {
+        Assertions.assertThrows(NoSuchUserException.class, () -> userService.updateUser(Integer.MAX_VALUE, new UserPayload()));
+
+        Assertions.assertEquals(1, meterRegistry.get("user.service")
+                .tag("method", "updateUser").tag("exception", "NoSuchUserException").timer().count());
+    }
+}
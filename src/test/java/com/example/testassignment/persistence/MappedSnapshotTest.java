@@ -0,0 +1,64 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MappedSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldLookUpUsersInMappedFile() throws IOException {
+        var user1 = new User(7, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        user1.setBirthday(EpochDays.parse("1970-05-19"));
+        user1.setAddress(new Address("UA", "Kyiv", "Street", 1, 1000));
+        var user2 = new User(3, "FIRST_NAME 2", null, "EMAIL 2");
+        var user3 = new User(5, "FIRST_NAME 3", "LAST_NAME 3", "EMAIL 3");
+        var path = directory.resolve("users.snapshot");
+
+        MappedSnapshot.write(path, 4, List.of(user1, user2, user3).iterator());
+        var snapshot = MappedSnapshot.open(path).orElseThrow();
+
+        Assertions.assertEquals(4, snapshot.firstSegment());
+        Assertions.assertEquals(7, snapshot.maxId());
+        Assertions.assertEquals(user1, snapshot.find(7).orElseThrow());
+        Assertions.assertEquals(user2, snapshot.find(3).orElseThrow());
+        Assertions.assertTrue(snapshot.find(4).isEmpty());
+        Assertions.assertEquals(List.of(user2, user3, user1), snapshot.users().toList());
+    }
+
+    @Test
+    public void shouldOpenEmptySnapshot() throws IOException {
+        var path = directory.resolve("users.snapshot");
+
+        MappedSnapshot.write(path, 0, List.<User>of().iterator());
+        var snapshot = MappedSnapshot.open(path).orElseThrow();
+
+        Assertions.assertEquals(0, snapshot.maxId());
+        Assertions.assertTrue(snapshot.find(1).isEmpty());
+        Assertions.assertTrue(MappedSnapshot.open(directory.resolve("missing")).isEmpty());
+    }
+
+    @Test
+    public void shouldReplaceSnapshotWithoutLeavingTemporaryFile() throws IOException {
+        var path = directory.resolve("users.snapshot");
+        MappedSnapshot.write(path, 1, List.of(new User(1, "FIRST_NAME 1", null, "EMAIL 1")).iterator());
+
+        MappedSnapshot.write(path, 2, List.of(new User(2, "FIRST_NAME 2", null, "EMAIL 2")).iterator());
+        var snapshot = MappedSnapshot.open(path).orElseThrow();
+
+        Assertions.assertEquals(2, snapshot.firstSegment());
+        Assertions.assertEquals(2, snapshot.maxId());
+        Assertions.assertEquals(List.of(path), Files.list(directory).toList());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import com.example.testassignment.repositories.ConcurrentUserRepository;
+import com.example.testassignment.repositories.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldReplayLogAfterCrash() {
+        var repository = open();
+        var user1 = new User(0, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        user1.setBirthday(EpochDays.parse("1970-05-19"));
+        user1.setAddress(new Address("UA", "Kyiv", "Street", 1, 1000));
+        var user2 = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        repository.create(user1);
+        repository.create(user2);
+        var updatedUser2 = user2.toBuilder().phoneNumber("+1234567890").build();
+        repository.update(updatedUser2);
+        repository.delete(user1);
+
+        // the first journal is never closed, as after a crash
+        var restored = open();
+
+        Assertions.assertEquals(List.of(updatedUser2), restored.getAll());
+        restored.create(new User());
+        Assertions.assertEquals(3, restored.getAll().get(1).getId());
+    }
+
+    @Test
+    public void shouldRestoreSnapshotAndLogTail() throws IOException {
+        var repository = new ConcurrentUserRepository[1];
+        var journal = journal(() -> repository[0]);
+        repository[0] = new ConcurrentUserRepository(List.of(journal));
+        journal.afterSingletonsInstantiated();
+        var user1 = new User(0, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        user1.setBirthday(EpochDays.parse("1970-05-19"));
+        repository[0].create(user1);
+        journal.snapshot();
+        var user2 = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        repository[0].create(user2);
+        journal.destroy();
+
+        var restored = open();
+
+        Assertions.assertEquals(List.of(user1, user2), restored.getAll());
+        Assertions.assertEquals(List.of(user1), restored.findByBirthdayRange(EpochDays.NONE, EpochDays.NONE).toList());
+    }
+
+    @Test
+    public void shouldKeepSnapshotThatDidNotLoadCompletely() throws IOException {
+        var repository = new ConcurrentUserRepository[1];
+        var journal = journal(() -> repository[0]);
+        repository[0] = new ConcurrentUserRepository(List.of(journal));
+        journal.afterSingletonsInstantiated();
+        var user1 = new User(0, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        repository[0].create(user1);
+        journal.snapshot();
+        var snapshot = Files.readAllBytes(directory.resolve("users.snapshot"));
+        var user2 = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        repository[0].create(user2);
+        journal.onLoadFailed(new IllegalStateException("Corrupt user record"));
+        journal.destroy();
+
+        Assertions.assertArrayEquals(snapshot, Files.readAllBytes(directory.resolve("users.snapshot")));
+        Assertions.assertEquals(List.of(user1, user2), open().getAll());
+    }
+
+    private UserRepository open() {
+        var repository = new ConcurrentUserRepository[1];
+        var journal = journal(() -> repository[0]);
+        repository[0] = new ConcurrentUserRepository(List.of(journal));
+        journal.afterSingletonsInstantiated();
+        return repository[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private UserJournal journal(Supplier<UserRepository> repository) {
+        ObjectProvider<UserRepository> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenAnswer(invocation -> repository.get());
+        return new UserJournal(directory, FsyncPolicy.ALWAYS, Duration.ofMillis(20),
+                Duration.ofHours(1), provider);
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.testassignment.persistence;
+
+import com.example.testassignment.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldReplayAppendsAfterTornRecord() throws IOException {
+        assertReplaysAppendsAroundFailedOne(false);
+    }
+
+    @Test
+    public void shouldContinueInNewSegmentWhenTornRecordCantBeCut() throws IOException {
+        assertReplaysAppendsAroundFailedOne(true);
+    }
+
+    private void assertReplaysAppendsAroundFailedOne(boolean failTruncate) throws IOException {
+        var channels = new ArrayList<FailingChannel>();
+        var log = failingLog(FsyncPolicy.OS, channels);
+        var user1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        var user3 = new User(3, "FIRST_NAME 3", "LAST_NAME 3", "EMAIL 3");
+
+        log.append(WriteAheadLog.CREATE, user1);
+        channels.get(0).failNextWrite = true;
+        channels.get(0).failTruncate = failTruncate;
+        Assertions.assertThrows(UncheckedIOException.class, () -> log.append(WriteAheadLog.CREATE, user2));
+        log.append(WriteAheadLog.CREATE, user3);
+        log.close();
+
+        List<User> replayed = new ArrayList<>();
+        WriteAheadLog.replay(directory, 1, (operation, user) -> replayed.add(user));
+        Assertions.assertEquals(List.of(user1, user3), replayed);
+        Assertions.assertEquals(failTruncate ? 2 : 1, channels.size());
+    }
+
+    @Test
+    public void shouldCutUnsyncedAppendOutOfLogWhenSyncFails() throws IOException {
+        var channels = new ArrayList<FailingChannel>();
+        var log = failingLog(FsyncPolicy.ALWAYS, channels);
+        var user1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        var user3 = new User(3, "FIRST_NAME 3", "LAST_NAME 3", "EMAIL 3");
+
+        log.append(WriteAheadLog.CREATE, user1);
+        channels.get(0).failNextForce = true;
+        Assertions.assertThrows(UncheckedIOException.class, () -> log.append(WriteAheadLog.CREATE, user2));
+        log.append(WriteAheadLog.CREATE, user3);
+        log.close();
+
+        List<User> replayed = new ArrayList<>();
+        WriteAheadLog.replay(directory, 1, (operation, user) -> replayed.add(user));
+        Assertions.assertEquals(List.of(user1, user3), replayed);
+    }
+
+    @Test
+    public void shouldRefuseAppendsWhenUnsyncedAppendCantBeCut() throws IOException {
+        var channels = new ArrayList<FailingChannel>();
+        var log = failingLog(FsyncPolicy.ALWAYS, channels);
+        var user1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+
+        log.append(WriteAheadLog.CREATE, user1);
+        channels.get(0).failNextForce = true;
+        channels.get(0).failTruncate = true;
+        Assertions.assertThrows(UncheckedIOException.class, () -> log.append(WriteAheadLog.CREATE, user2));
+
+        Assertions.assertThrows(UncheckedIOException.class, () -> log.append(WriteAheadLog.CREATE, user2));
+        log.close();
+    }
+
+    @Test
+    public void shouldForceEarlierAppendsWhenTornRecordCantBeCut() throws Exception {
+        var channels = new ArrayList<FailingChannel>();
+        var log = failingLog(FsyncPolicy.ALWAYS, channels);
+        var user1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        var user3 = new User(3, "FIRST_NAME 3", "LAST_NAME 3", "EMAIL 3");
+        var release = new CountDownLatch(1);
+        channels.get(0).holdNextForce = release;
+
+        var first = CompletableFuture.runAsync(() -> log.append(WriteAheadLog.CREATE, user1));
+        channels.get(0).forceHeld.await();
+        channels.get(0).failNextWrite = true;
+        channels.get(0).failTruncate = true;
+        Assertions.assertThrows(UncheckedIOException.class, () -> log.append(WriteAheadLog.CREATE, user2));
+        Assertions.assertEquals(1, channels.get(0).forces);
+        release.countDown();
+        first.join();
+        log.append(WriteAheadLog.CREATE, user3);
+        log.close();
+
+        List<User> replayed = new ArrayList<>();
+        WriteAheadLog.replay(directory, 1, (operation, user) -> replayed.add(user));
+        Assertions.assertEquals(List.of(user1, user3), replayed);
+        Assertions.assertEquals(2, channels.size());
+    }
+
+    @Test
+    public void shouldRefuseAppendsWhenNoNewSegmentCanBeOpened() throws IOException {
+        var channels = new ArrayList<FailingChannel>();
+        var log = new WriteAheadLog(directory, FsyncPolicy.ALWAYS, 1) {
+            @Override
+            FileChannel open(long segment) throws IOException {
+                if (!channels.isEmpty()) {
+                    throw new IOException("Too many open files");
+                }
+                var channel = new FailingChannel(super.open(segment));
+                channels.add(channel);
+                return channel;
+            }
+        };
+        var user1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+
+        log.append(WriteAheadLog.CREATE, user1);
+        channels.get(0).failNextWrite = true;
+        channels.get(0).failTruncate = true;
+        Assertions.assertThrows(UncheckedIOException.class, () -> log.append(WriteAheadLog.CREATE, user2));
+
+        var refused = Assertions.assertThrows(UncheckedIOException.class,
+                () -> log.append(WriteAheadLog.CREATE, user2));
+        Assertions.assertEquals("The user log holds records of aborted writes", refused.getCause().getMessage());
+        log.close();
+    }
+
+    private WriteAheadLog failingLog(FsyncPolicy fsyncPolicy, List<FailingChannel> channels) throws IOException {
+        return new WriteAheadLog(directory, fsyncPolicy, 1) {
+            @Override
+            FileChannel open(long segment) throws IOException {
+                var channel = new FailingChannel(super.open(segment));
+                channels.add(channel);
+                return channel;
+            }
+        };
+    }
+
+    /**
+     * Writes half of the next record and then fails, like a full disk, or fails
+     * the next sync, like a disk that reports a write error. The next sync can also
+     * be held until a latch is released.
+     */
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        final CountDownLatch forceHeld = new CountDownLatch(1);
+        volatile boolean failNextWrite;
+        volatile boolean failNextForce;
+        volatile boolean failTruncate;
+        volatile CountDownLatch holdNextForce;
+        volatile int forces;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                delegate.write(source.slice(source.position(), source.remaining() / 2));
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(source);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Can't truncate");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            return delegate.read(destination);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+            return delegate.read(destinations, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            return delegate.write(sources, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failNextForce) {
+                failNextForce = false;
+                throw new IOException("Input/output error");
+            }
+            var hold = holdNextForce;
+            if (hold != null) {
+                holdNextForce = null;
+                forceHeld.countDown();
+                try {
+                    hold.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            delegate.force(metaData);
+            forces++;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+            return delegate.transferFrom(source, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer destination, long position) throws IOException {
+            return delegate.read(destination, position);
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) throws IOException {
+            return delegate.write(source, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
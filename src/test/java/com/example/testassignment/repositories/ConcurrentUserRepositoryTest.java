@@ -0,0 +1,556 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.UserField;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.DuplicateEmailException;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.EpochDays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentUserRepositoryTest {
+
+    private ConcurrentUserRepository repository;
+    private User user;
+
+    @BeforeEach
+    public void before() {
+        this.repository = new ConcurrentUserRepository();
+        user = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+    }
+
+    @Test
+    public void shouldFindUserById() {
+        // Given
+        repository.create(user);
+
+        //When
+        var foundUser = this.repository.find(1);
+
+        //Then
+        assertTrue(foundUser.isPresent());
+        assertEquals(user, foundUser.get());
+    }
+
+    @Test
+    public void shouldDeleteUser() {
+        // Given
+        var user2 = new User(1, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        repository.create(user);
+        repository.create(user2);
+
+        //When
+        this.repository.delete(user);
+
+        //Then
+        assertTrue(this.repository.find(1).isEmpty());
+        assertTrue(this.repository.find(2).isPresent());
+    }
+
+    @Test
+    public void shouldKeepVersionWhenDeletingUnknownUser() {
+        repository.create(user);
+        var storeVersion = repository.version();
+
+        repository.delete(new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2"));
+
+        assertEquals(storeVersion, repository.version());
+    }
+
+    @Test
+    public void shouldKeepVersionWhenBatchCreatesNoUser() {
+        repository.create(user);
+        var storeVersion = repository.version();
+
+        var result = repository.createAll(List.of(new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 1")));
+
+        assertTrue(result.users().isEmpty());
+        assertEquals(storeVersion, repository.version());
+    }
+
+    @Test
+    public void getAllUsersShouldKeepIdOrder() {
+        // Given
+        var user1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        repository.create(user1);
+        repository.create(user2);
+
+        // When
+        var result = repository.getAll();
+
+        // Then
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(user1, result.get(0));
+        Assertions.assertEquals(user2, result.get(1));
+    }
+
+    @Test
+    public void shouldReplace() {
+        repository.create(user);
+        var newUser = new User(1, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+
+        repository.update(newUser);
+
+        Assertions.assertEquals("FIRST_NAME 2", repository.find(1).get().getFirstName());
+        Assertions.assertEquals("FIRST_NAME 2", repository.getAll().get(0).getFirstName());
+    }
+
+    @Test
+    public void shouldVersionUpdates() {
+        repository.create(user);
+        var storeVersion = repository.version();
+        var newUser = new User(1, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+
+        repository.update(newUser, 1);
+
+        assertEquals(2, repository.find(1).get().getVersion());
+        assertTrue(repository.version() > storeVersion);
+        assertThrows(VersionConflictException.class, () -> repository.update(newUser, 1));
+        assertEquals(2, repository.find(1).get().getVersion());
+    }
+
+    @Test
+    public void shouldNotReplaceNotExistUser() {
+        repository.create(user);
+        var newUser = new User(12, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+
+        NoSuchUserException thrown = assertThrows(
+                NoSuchUserException.class,
+                () -> repository.update(newUser),
+                "Expected replaceUser() to trow exception for not exist user"
+        );
+
+        assertTrue(thrown.getMessage().contains("User is not found"));
+    }
+
+    @Test
+    public void shouldKeepEmailsUnique() {
+        repository.create(user);
+        var other = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        repository.create(other);
+
+        assertThrows(DuplicateEmailException.class,
+                () -> repository.create(new User(0, "FIRST_NAME 3", "LAST_NAME 3", " email 1")));
+        assertThrows(DuplicateEmailException.class,
+                () -> repository.update(other.toBuilder().email("Email 1").build()));
+        var created = repository.createAll(List.of(
+                new User(0, "FIRST_NAME 4", "LAST_NAME 4", "EMAIL 4"),
+                new User(0, "FIRST_NAME 5", "LAST_NAME 5", "EMAIL 2"),
+                new User(0, "FIRST_NAME 7", "LAST_NAME 7", "email 4 ")));
+        assertEquals(List.of("FIRST_NAME 4"), created.users().stream().map(User::getFirstName).toList());
+        assertInstanceOf(DuplicateEmailException.class, created.failures().get(1));
+        assertInstanceOf(DuplicateEmailException.class, created.failures().get(2));
+        assertEquals(3, repository.getAll().size());
+        assertEquals("FIRST_NAME 4", repository.findByEmail("email 4").orElseThrow().getFirstName());
+
+        repository.update(other.toBuilder().email("EMAIL 3").build());
+        repository.delete(user);
+        repository.create(new User(0, "FIRST_NAME 6", "LAST_NAME 6", "EMAIL 2"));
+
+        assertEquals("FIRST_NAME 2", repository.findByEmail("email 3").orElseThrow().getFirstName());
+        assertEquals("FIRST_NAME 6", repository.findByEmail("Email 2").orElseThrow().getFirstName());
+        assertTrue(repository.findByEmail("EMAIL 1").isEmpty());
+    }
+
+    @Test
+    public void shouldSearchByPrefixAndTypos() {
+        var john = new User(0, "John", "Smith", "john.smith@example.com");
+        var joan = new User(0, "Joan", "Smithers", "joan@example.com");
+        var mary = new User(0, "Mary", "Johnson", "mary@example.org");
+        repository.createAll(List.of(john, joan, mary));
+
+        assertEquals(List.of(john, joan), repository.search("smi", false, 0).toList());
+        assertEquals(List.of(john, mary), repository.search("JOH", false, 0).toList());
+        assertEquals(List.of(joan), repository.search("smith jo", false, 1).toList());
+        assertEquals(List.of(), repository.search("smiht", false, 0).toList());
+        assertEquals(List.of(john), repository.search("smiht", true, 0).toList());
+        assertEquals(List.of(john), repository.search("john.smith", false, 0).toList());
+        assertEquals(List.of(), repository.search("example", false, 0).toList());
+
+        repository.update(mary.toBuilder().lastName("Smyth").build());
+        repository.delete(john);
+
+        assertEquals(List.of(joan), repository.search("smith", false, 0).toList());
+        assertEquals(List.of(), repository.search("johnson", false, 0).toList());
+        assertEquals(List.of(mary.getId()),
+                repository.search("smyth", false, 0).map(User::getId).toList());
+    }
+
+    @Test
+    public void shouldFindUsersByBirthdayRange() {
+        var user1 = userBornAt("1996-03-15");
+        var user2 = userBornAt("1970-05-19");
+        var user3 = userBornAt("1992-08-11");
+        repository.create(user1);
+        repository.create(user2);
+        repository.create(user3);
+        repository.create(new User());
+
+        var result = repository.findByBirthdayRange(EpochDays.parse("1970-05-19"), EpochDays.NONE).toList();
+        Assertions.assertEquals(List.of(user3, user1), result);
+
+        result = repository.findByBirthdayRange(EpochDays.NONE, EpochDays.parse("1996-03-15")).toList();
+        Assertions.assertEquals(List.of(user2, user3), result);
+
+        result = repository.findByBirthdayRange(EpochDays.NONE, EpochDays.NONE).toList();
+        Assertions.assertEquals(List.of(user2, user3, user1), result);
+    }
+
+    @Test
+    public void shouldKeepBirthdayIndexInSyncOnUpdateAndDelete() {
+        var user1 = userBornAt("1996-03-15");
+        var user2 = userBornAt("1970-05-19");
+        repository.create(user1);
+        repository.create(user2);
+
+        var movedUser = user1.toBuilder()
+                .birthday(EpochDays.parse("1960-01-01"))
+                .build();
+        repository.update(movedUser);
+        repository.delete(user2);
+
+        var result = repository.findByBirthdayRange(EpochDays.NONE, EpochDays.NONE).toList();
+        Assertions.assertEquals(List.of(movedUser), result);
+    }
+
+    @Test
+    public void shouldFindUsersByAddressComposedWithBirthdayRange() {
+        var user1 = userLivingIn("1996-03-15", "Ukraine", "Kyiv", 1001);
+        var user2 = userLivingIn("1970-05-19", "ukraine ", "Lviv", 79000);
+        var user3 = userLivingIn("1992-08-11", "Ukraine", "kyiv", 1001);
+        var user4 = userLivingIn("1985-01-01", "Poland", "Krakow", 30001);
+        Stream.of(user1, user2, user3, user4).forEach(repository::create);
+
+        assertEquals(List.of(user1, user2, user3),
+                repository.findByAddress(new AddressFiltering("UKRAINE", null, null), 0).toList());
+        assertEquals(List.of(user3),
+                repository.findByAddress(new AddressFiltering("Ukraine", "Kyiv", 1001), 1).toList());
+        assertEquals(List.of(user3, user1), repository.findByAddress(new AddressFiltering(null, "Kyiv", null),
+                EpochDays.NONE, EpochDays.NONE, EpochDays.NONE, 0).toList());
+        assertEquals(List.of(user1), repository.findByAddress(new AddressFiltering("Ukraine", null, null),
+                EpochDays.parse("1980-01-01"), EpochDays.NONE, user3.getBirthday(), user3.getId()).toList());
+        assertEquals(List.of(), repository.findByAddress(new AddressFiltering("Ukraine", "Krakow", null), 0).toList());
+    }
+
+    @Test
+    public void shouldKeepAddressIndexInSyncOnUpdateAndDelete() {
+        var user1 = userLivingIn("1996-03-15", "Ukraine", "Kyiv", 1001);
+        var user2 = userLivingIn("1970-05-19", "Ukraine", "Kyiv", 1001);
+        repository.create(user1);
+        repository.create(user2);
+
+        var movedUser = user1.toBuilder()
+                .address(new Address("Poland", "Krakow", "Main", 1, 30001))
+                .build();
+        repository.update(movedUser);
+        repository.delete(user2);
+
+        assertEquals(List.of(), repository.findByAddress(new AddressFiltering("Ukraine", null, null), 0).toList());
+        assertEquals(List.of(movedUser.getId()), repository.findByAddress(new AddressFiltering(null, null, 30001), 0)
+                .map(User::getId)
+                .toList());
+    }
+
+    @Test
+    public void shouldEstimateIndexedListingsWithoutVisitingUsers() {
+        var user1 = userLivingIn("1996-03-15", "Ukraine", "Kyiv", 1001);
+        var user2 = userLivingIn("1970-05-19", "Ukraine", "Lviv", 79000);
+        var user3 = userLivingIn("1992-08-11", "Ukraine", "Kyiv", 1001);
+        Stream.of(user1, user2, user3).forEach(repository::create);
+        repository.update(user2.toBuilder().lastName("Baker").birthday(EpochDays.parse("1996-03-20")).build());
+        repository.delete(user3);
+
+        assertEquals(2, repository.estimateBirthdayRange(EpochDays.NONE, EpochDays.NONE));
+        assertEquals(0, repository.estimateBirthdayRange(EpochDays.parse("1970-01-01"), EpochDays.parse("1990-01-01")));
+        assertEquals(1, repository.estimateByAddress(new AddressFiltering("Ukraine", "Kyiv", null)));
+        assertEquals(1, repository.estimateSearch("bak"));
+        assertEquals(0, repository.estimateSearch("zzz"));
+    }
+
+    @Test
+    public void shouldListUsersInSortIndexOrder() {
+        var smith = new User(0, "John", "smith", "b@example.com");
+        var adams = new User(0, "Mary", "Adams", "c@example.com");
+        var nameless = new User(0, "Ann", null, "a@example.com");
+        var smithToo = new User(0, "Bob", "SMITH", null);
+        smith.setBirthday(EpochDays.parse("1990-01-01"));
+        adams.setBirthday(EpochDays.parse("1980-01-01"));
+        Stream.of(smith, adams, nameless, smithToo).forEach(repository::create);
+
+        assertEquals(List.of(nameless, adams, smith, smithToo),
+                repository.findSorted(new UserSort(UserField.LAST_NAME, false)).toList());
+        assertEquals(List.of(smithToo, smith, adams, nameless),
+                repository.findSorted(new UserSort(UserField.LAST_NAME, true)).toList());
+        assertEquals(List.of(smithToo, nameless, smith, adams),
+                repository.findSorted(new UserSort(UserField.EMAIL, false)).toList());
+        assertEquals(List.of(nameless, smithToo, adams, smith),
+                repository.findSorted(new UserSort(UserField.BIRTHDAY, false)).toList());
+        assertEquals(List.of(smithToo, nameless, adams, smith),
+                repository.findSorted(new UserSort(UserField.ID, true)).toList());
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.findSorted(new UserSort(UserField.CITY, false)));
+    }
+
+    @Test
+    public void shouldKeepSortIndexesInSyncOnUpdateAndDelete() {
+        var smith = new User(0, "John", "Smith", "b@example.com");
+        var adams = new User(0, "Mary", "Adams", "c@example.com");
+        repository.create(smith);
+        repository.create(adams);
+
+        var renamedUser = smith.toBuilder()
+                .lastName("Baker")
+                .email("z@example.com")
+                .build();
+        repository.update(renamedUser);
+        repository.delete(adams);
+
+        assertEquals(List.of(renamedUser), repository.findSorted(new UserSort(UserField.LAST_NAME, false)).toList());
+        assertEquals(List.of(renamedUser), repository.findSorted(new UserSort(UserField.EMAIL, true)).toList());
+    }
+
+    @Test
+    public void shouldResumeFromKeysetPosition() {
+        var user1 = userBornAt("1996-03-15");
+        var user2 = userBornAt("1970-05-19");
+        var user3 = userBornAt("1992-08-11");
+        repository.create(user1);
+        repository.create(user2);
+        repository.create(user3);
+
+        Assertions.assertEquals(List.of(user2, user3), repository.findAfter(1).toList());
+
+        repository.delete(user3);
+        var result = repository.findByBirthdayRange(EpochDays.NONE, EpochDays.NONE,
+                user3.getBirthday(), user3.getId()).toList();
+        Assertions.assertEquals(List.of(user1), result);
+
+        result = repository.findByBirthdayRange(EpochDays.NONE, EpochDays.parse("1990-01-01"),
+                user2.getBirthday(), user2.getId()).toList();
+        Assertions.assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void shouldCreateBatchWithConsecutiveIds() {
+        repository.create(user);
+        var user2 = userBornAt("1970-05-19");
+        var user3 = userBornAt("1992-08-11");
+
+        repository.createAll(List.of(user2, user3));
+
+        Assertions.assertEquals(2, user2.getId());
+        Assertions.assertEquals(3, user3.getId());
+        Assertions.assertEquals(List.of(user, user2, user3), repository.getAll());
+        Assertions.assertEquals(List.of(user2, user3),
+                repository.findByBirthdayRange(EpochDays.NONE, EpochDays.NONE).toList());
+    }
+
+    @Test
+    public void shouldServeLoadedSourceBeforeCopyCompletes() {
+        var loaded1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var loaded2 = new User(2, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        var release = new CountDownLatch(1);
+        var source = new UserSource() {
+            @Override
+            public Optional<User> find(int id) {
+                return Stream.of(loaded1, loaded2)
+                        .filter(user -> user.getId() == id)
+                        .findFirst()
+                        .map(user -> user.toBuilder().build());
+            }
+
+            @Override
+            public Stream<User> users() {
+                return Stream.of(loaded1, loaded2)
+                        .peek(user -> awaitQuietly(release))
+                        .map(user -> user.toBuilder().build());
+            }
+
+            @Override
+            public int maxId() {
+                return 2;
+            }
+        };
+
+        repository.load(source);
+        Assertions.assertEquals(loaded2, repository.find(2).orElseThrow());
+        repository.delete(loaded1);
+        repository.create(user);
+        release.countDown();
+
+        Assertions.assertEquals(List.of(loaded2, user), repository.getAll());
+        Assertions.assertEquals(3, user.getId());
+        Assertions.assertTrue(repository.find(1).isEmpty());
+    }
+
+    @Test
+    public void shouldGoOnWithCopiedUsersWhenLoadFails() {
+        var loaded1 = new User(1, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        List<RuntimeException> failures = new ArrayList<>();
+        var loading = new ConcurrentUserRepository(List.of(new UserChangeListener() {
+            @Override
+            public void onLoadFailed(RuntimeException failure) {
+                failures.add(failure);
+            }
+        }));
+        var source = new UserSource() {
+            @Override
+            public Optional<User> find(int id) {
+                return id == 1 ? Optional.of(loaded1.toBuilder().build()) : Optional.empty();
+            }
+
+            @Override
+            public Stream<User> users() {
+                return IntStream.rangeClosed(1, 2).mapToObj(id -> {
+                    if (id == 2) {
+                        throw new IllegalStateException("Corrupt user record");
+                    }
+                    return loaded1.toBuilder().build();
+                });
+            }
+
+            @Override
+            public int maxId() {
+                return 2;
+            }
+        };
+
+        loading.load(source);
+
+        Assertions.assertEquals(List.of(loaded1), loading.getAll());
+        Assertions.assertEquals(1, loading.count());
+        Assertions.assertTrue(loading.find(2).isEmpty());
+        Assertions.assertEquals(1, failures.size());
+    }
+
+    @Test
+    public void shouldStoreUsersOfBatchThatNoListenerAborted() {
+        List<User> notified = new ArrayList<>();
+        var failing = new ConcurrentUserRepository(List.of(new UserChangeListener() {
+            @Override
+            public void onCreate(User user) {
+                if ("FIRST_NAME 2".equals(user.getFirstName())) {
+                    throw new IllegalStateException("Can't append");
+                }
+                notified.add(user);
+            }
+        }));
+        var user1 = new User(0, "FIRST_NAME 1", "LAST_NAME 1", "EMAIL 1");
+        var user2 = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        var user3 = new User(0, "FIRST_NAME 3", "LAST_NAME 3", "EMAIL 3");
+
+        var created = failing.createAll(List.of(user1, user2, user3));
+
+        assertEquals(List.of(user1, user3), created.users());
+        assertEquals(Set.of(1), created.failures().keySet());
+        assertEquals(notified, failing.getAll());
+        assertTrue(failing.findByEmail("EMAIL 2").isEmpty());
+        failing.create(new User(0, "FIRST_NAME 4", "LAST_NAME 4", "EMAIL 2"));
+    }
+
+    @Test
+    public void shouldAssignUniqueIdsConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        IntStream.range(0, 1000)
+                .forEach(i -> executor.submit(() -> repository.create(new User())));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        var result = repository.getAll();
+        Assertions.assertEquals(1000, result.size());
+        Assertions.assertEquals(1000, result.get(999).getId());
+    }
+
+    @Test
+    public void shouldKeepAddressIndexInSyncUnderConcurrentMoves() throws InterruptedException {
+        var ids = IntStream.range(0, 8)
+                .mapToObj(i -> {
+                    var user = userLivingIn("1990-01-01", "Ukraine", "Kyiv", 1001);
+                    repository.create(user);
+                    return user.getId();
+                })
+                .toList();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        // every user moves back and forth alone, so bitmaps keep emptying and filling
+        ids.forEach(id -> executor.submit(() -> {
+            for (int i = 0; i < 1000; i++) {
+                var country = i % 2 == 0 ? "Poland" : "Ukraine";
+                repository.update(repository.find(id).orElseThrow().toBuilder()
+                        .address(new Address(country, "Kyiv", "Main", 1, 1001))
+                        .build());
+            }
+        }));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(ids, repository.findByAddress(new AddressFiltering("Ukraine", "Kyiv", 1001), 0)
+                .map(User::getId)
+                .toList());
+        assertEquals(List.of(), repository.findByAddress(new AddressFiltering("Poland", null, null), 0).toList());
+    }
+
+    @Test
+    public void shouldPauseWritesOnlyOnceWritesInProgressAreVisible() throws Exception {
+        var listenerCalled = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var blocking = new ConcurrentUserRepository(List.of(new UserChangeListener() {
+            @Override
+            public void onCreate(User user) {
+                listenerCalled.countDown();
+                awaitQuietly(release);
+            }
+        }));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        executor.submit(() -> blocking.create(user));
+        listenerCalled.await();
+
+        var seen = executor.submit(() -> {
+            var visible = new boolean[1];
+            blocking.whileWritesPaused(() -> visible[0] = blocking.find(1).isPresent());
+            return visible[0];
+        });
+        release.countDown();
+
+        assertTrue(seen.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private User userLivingIn(String birthday, String country, String city, int zipCode) {
+        var user = userBornAt(birthday);
+        user.setAddress(new Address(country, city, "Main", 1, zipCode));
+        return user;
+    }
+
+    private User userBornAt(String birthday) {
+        var user = new User();
+        user.setBirthday(EpochDays.parse(birthday));
+        return user;
+    }
+}
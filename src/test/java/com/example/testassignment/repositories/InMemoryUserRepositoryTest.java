@@ -6,6 +6,10 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class InMemoryUserRepositoryTest {
@@ -33,6 +37,17 @@ public class InMemoryUserRepositoryTest {
         assertEquals(user, foundUser.get());
     }
 
+    @Test
+    public void shouldKeepVersionWhenBatchCreatesNoUser() {
+        repository.create(user);
+        var storeVersion = repository.version();
+
+        var result = repository.createAll(List.of(new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 1")));
+
+        assertTrue(result.users().isEmpty());
+        assertEquals(storeVersion, repository.version());
+    }
+
     @Test
     public void shouldDeleteUser() {
         // Given
@@ -97,4 +112,40 @@ public class InMemoryUserRepositoryTest {
 
         assertTrue(thrown.getMessage().contains("User is not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldNotReuseIdOfDeletedUser() {
+        repository.create(user);
+        repository.delete(user);
+        var next = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+
+        repository.create(next);
+
+        assertEquals(2, next.getId());
+    }
+
+    @Test
+    public void shouldStoreUsersOfBatchThatNoListenerAborted() {
+        List<User> notified = new ArrayList<>();
+        var failing = new InMemoryUserRepository(List.of(new UserChangeListener() {
+            @Override
+            public void onCreate(User user) {
+                if ("FIRST_NAME 2".equals(user.getFirstName())) {
+                    throw new IllegalStateException("Can't append");
+                }
+                notified.add(user);
+            }
+        }));
+        var user2 = new User(0, "FIRST_NAME 2", "LAST_NAME 2", "EMAIL 2");
+        var user3 = new User(0, "FIRST_NAME 3", "LAST_NAME 3", "EMAIL 3");
+
+        var created = failing.createAll(List.of(user, user2, user3));
+
+        assertEquals(List.of(user, user3), created.users());
+        assertEquals(Set.of(1), created.failures().keySet());
+        assertEquals(notified, failing.getAll());
+        var next = new User(0, "FIRST_NAME 4", "LAST_NAME 4", "EMAIL 2");
+        failing.create(next);
+        assertEquals(4, next.getId());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.DuplicateEmailException;
+import com.example.testassignment.exceptions.NoSuchUserException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.EpochDays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedUserRepositoryTest {
+
+    private ShardedUserRepository repository;
+
+    @BeforeEach
+    public void before() {
+        repository = new ShardedUserRepository(4);
+        IntStream.rangeClosed(1, 20).forEach(i -> repository.create(
+                new User(0, "FIRST_NAME " + i, "LAST_NAME " + i, "EMAIL " + i).toBuilder()
+                        // ids and birthdays run in opposite directions
+                        .birthday(EpochDays.parse("2000-01-01") - i)
+                        .build()));
+    }
+
+    @Test
+    public void shouldListAllShardsInIdOrder() {
+        var ids = repository.getAll().stream().map(User::getId).toList();
+
+        assertEquals(IntStream.rangeClosed(1, 20).boxed().toList(), ids);
+        assertEquals(20, repository.count());
+    }
+
+    @Test
+    public void shouldPageAfterIdAcrossShards() {
+        var ids = repository.findAfter(5).limit(3).map(User::getId).toList();
+
+        assertEquals(List.of(6, 7, 8), ids);
+    }
+
+    @Test
+    public void shouldMergeBirthdayRangeInBirthdayOrder() {
+        var from = EpochDays.parse("2000-01-01") - 16;
+        var to = EpochDays.parse("2000-01-01") - 5;
+
+        var lazy = repository.findByBirthdayRange(from, to).limit(100).map(User::getId).toList();
+        var bulk = repository.findByBirthdayRange(from, to).map(User::getId).toList();
+
+        assertEquals(List.of(15, 14, 13, 12, 11, 10, 9, 8, 7, 6), lazy);
+        assertEquals(lazy, bulk);
+    }
+
+    @Test
+    public void shouldResumeBirthdayRangeAfterCursor() {
+        var user = repository.find(10).orElseThrow();
+
+        var ids = repository.findByBirthdayRange(EpochDays.NONE, EpochDays.NONE, user.getBirthday(), user.getId())
+                .limit(2)
+                .map(User::getId)
+                .toList();
+
+        assertEquals(List.of(9, 8), ids);
+    }
+
+    @Test
+    public void shouldUpdateAndDeleteInOwningShard() {
+        var user = repository.find(7).orElseThrow();
+
+        repository.update(user.toBuilder().firstName("Changed").build(), 1);
+        repository.delete(repository.find(8).orElseThrow());
+
+        assertEquals("Changed", repository.find(7).orElseThrow().getFirstName());
+        assertEquals(2, repository.find(7).orElseThrow().getVersion());
+        assertTrue(repository.find(8).isEmpty());
+        assertEquals(19, repository.count());
+        assertThrows(VersionConflictException.class, () -> repository.update(user, 1));
+        assertThrows(NoSuchUserException.class, () -> repository.update(new User(100, "F", "L", "E")));
+    }
+
+    @Test
+    public void shouldKeepVersionWhenBatchCreatesNoUser() {
+        var version = repository.version();
+
+        var result = repository.createAll(List.of(new User(0, "F", "L", "EMAIL 1")));
+
+        assertTrue(result.users().isEmpty());
+        assertEquals(version, repository.version());
+        assertEquals(20, repository.count());
+    }
+
+    @Test
+    public void shouldKeepVersionWhenDeletingUnknownUser() {
+        var version = repository.version();
+
+        repository.delete(new User(100, "F", "L", "E"));
+
+        assertEquals(version, repository.version());
+        assertEquals(20, repository.count());
+    }
+
+    @Test
+    public void shouldAssignUniqueIdsConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            var email = "E" + i;
+            executor.submit(() -> repository.create(new User(0, "F", "L", email)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        var ids = repository.getAll().stream().map(User::getId).toList();
+        assertEquals(IntStream.rangeClosed(1, 1020).boxed().toList(), ids);
+    }
+
+    @Test
+    public void shouldLetOneOfConcurrentCreatesClaimAnEmail() throws InterruptedException {
+        var created = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 100; i++) {
+            var email = i % 2 == 0 ? "shared@example.com" : "SHARED@example.com";
+            executor.submit(() -> {
+                try {
+                    repository.create(new User(0, "F", "L", email));
+                    created.incrementAndGet();
+                } catch (DuplicateEmailException e) {
+                    // lost the race
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, created.get());
+        assertEquals(21, repository.count());
+        assertTrue(repository.findByEmail("shared@example.com").isPresent());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.testassignment.repositories;
+
+import com.example.testassignment.entity.User;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes from virtual threads with a listener that blocks, the way the journal
+ * does on disk I/O, must not pin their carrier threads (JFR
+ * {@code jdk.VirtualThreadPinned}).
+ */
+public class VirtualThreadPinningTest {
+    private static final int WRITERS = 16;
+
+    private final UserChangeListener blockingListener = new UserChangeListener() {
+        @Override
+        public void onCreate(User user) {
+            block();
+        }
+
+        @Override
+        public void onUpdate(User previous, User current) {
+            block();
+        }
+    };
+
+    @Test
+    public void concurrentRepositoryShouldNotPinCarriers() throws Exception {
+        var repository = new ConcurrentUserRepository(List.of(blockingListener));
+
+        Assertions.assertEquals(List.of(), pinnedWhile(() -> write(repository)));
+    }
+
+    @Test
+    public void inMemoryRepositoryShouldNotPinCarriers() throws Exception {
+        var repository = new InMemoryUserRepository(List.of(blockingListener));
+
+        Assertions.assertEquals(List.of(), pinnedWhile(() -> write(repository)));
+    }
+
+    private static void write(UserRepository repository) {
+        try (var writers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < WRITERS; i++) {
+                var email = "user" + i + "@example.com";
+                writers.submit(() -> {
+                    var user = new User(0, "First", "Last", email);
+                    repository.create(user);
+                    repository.update(user.toBuilder().lastName("Other").build());
+                });
+            }
+        }
+    }
+
+    private static List<RecordedEvent> pinnedWhile(Runnable writes) throws IOException {
+        try (var recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+            writes.run();
+            recording.stop();
+            var file = Files.createTempFile("pinning", ".jfr");
+            try {
+                recording.dump(file);
+                return RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void block() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
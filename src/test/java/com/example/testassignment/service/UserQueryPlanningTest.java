@@ -0,0 +1,156 @@
+package com.example.testassignment.service;
+
+import com.example.testassignment.datafilters.AddressFiltering;
+import com.example.testassignment.datafilters.BirthdayRangeFiltering;
+import com.example.testassignment.datafilters.PageCursor;
+import com.example.testassignment.datafilters.PaginationParams;
+import com.example.testassignment.datafilters.UserFilter;
+import com.example.testassignment.datafilters.UserListFiltering;
+import com.example.testassignment.datafilters.UserSort;
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.helper.EpochDays;
+import com.example.testassignment.repositories.ConcurrentUserRepository;
+import com.example.testassignment.servise.UserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserQueryPlanningTest {
+
+    private final ConcurrentUserRepository repository = new ConcurrentUserRepository();
+    private final UserServiceImpl userService = new UserServiceImpl(repository);
+
+    @BeforeEach
+    public void before() {
+        IntStream.rangeClosed(1, 100).forEach(i -> {
+            var user = new User(0, "First" + i, "Last" + i, "user" + i + "@example.com");
+            user.setBirthday(EpochDays.parse("1990-01-01") + i);
+            user.setAddress(new Address(i % 2 == 0 ? "Ukraine" : "Poland", i % 10 == 0 ? "Kyiv" : "Lviv",
+                    "Main", 1, i % 5));
+            repository.create(user);
+        });
+    }
+
+    @Test
+    public void shouldListUsersMatchingFilterFromMostSelectiveIndex() {
+        var filtering = where("country:Ukraine AND lastName:last1*", null);
+
+        var users = userService.getAllUsers(filtering);
+        var plan = userService.explainUsers(filtering);
+
+        assertEquals(List.of(10, 12, 14, 16, 18, 100), users.stream().map(User::getId).toList());
+        assertEquals("word index on lastName:last1*", plan.getAccess());
+        assertEquals("(country:Ukraine AND lastName:last1*)", plan.getFilter());
+        assertEquals(12, plan.getRowsExamined());
+        assertEquals(6, plan.getRowsReturned());
+        assertEquals(2, plan.getConsidered().size());
+    }
+
+    @Test
+    public void shouldEstimateCandidatesWithoutRunningThem() {
+        var runs = new AtomicInteger();
+        var countingRepository = new ConcurrentUserRepository() {
+            @Override
+            public Stream<User> findByAddress(AddressFiltering address, int afterId) {
+                runs.incrementAndGet();
+                return super.findByAddress(address, afterId);
+            }
+
+            @Override
+            public Stream<User> search(String query, boolean fuzzy, int afterId) {
+                runs.incrementAndGet();
+                return super.search(query, fuzzy, afterId);
+            }
+        };
+        repository.findAfter(0).forEach(countingRepository::restore);
+        var service = new UserServiceImpl(countingRepository);
+
+        var users = service.getAllUsers(where("country:Ukraine AND lastName:last1*", new PaginationParams(0, 2)));
+
+        assertEquals(List.of(10, 12), users.stream().map(User::getId).toList());
+        // only the chosen word index is read
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void shouldLookUpEmailAndUnionDisjunctions() {
+        var plan = userService.explainUsers(where("email:USER7@example.com OR city:kyiv", null));
+
+        assertEquals("union of [email index on email:USER7@example.com, address index on city:kyiv]",
+                plan.getAccess());
+        assertEquals(11, plan.getRowsExamined());
+        assertEquals(11, plan.getRowsReturned());
+    }
+
+    @Test
+    public void shouldKeepBirthdayOrderAndCursorWithinRange() {
+        var range = new BirthdayRangeFiltering(EpochDays.parse("1990-01-01"), EpochDays.parse("1990-02-01"));
+        var firstPage = userService.getAllUsers(where("lastName:last2*", range, new PaginationParams(0, 3)));
+        var last = firstPage.get(2);
+        var cursor = new PageCursor(last.getBirthday(), last.getId()).encode();
+
+        var secondPage = userService.getAllUsers(where("lastName:last2*", range, new PaginationParams(0, 3, cursor)));
+
+        assertEquals(List.of(2, 20, 21), firstPage.stream().map(User::getId).toList());
+        assertEquals(List.of(22, 23, 24), secondPage.stream().map(User::getId).toList());
+    }
+
+    @Test
+    public void shouldFallBackToScanWithoutIndexedCondition() {
+        var plan = userService.explainUsers(where("zipCode:1..3", new PaginationParams(0, 10)));
+
+        assertEquals("id scan", plan.getAccess());
+        assertEquals("zipCode:1..3", plan.getFilter());
+        assertEquals(10, plan.getRowsReturned());
+    }
+
+    @Test
+    public void shouldWalkSortIndexUntilPageIsFull() {
+        var filtering = sorted("country:Ukraine", "lastName,desc", new PaginationParams(0, 3));
+
+        var users = userService.getAllUsers(filtering);
+        var plan = userService.explainUsers(filtering);
+
+        assertEquals(List.of(98, 96, 94), users.stream().map(User::getId).toList());
+        assertEquals("index walk in lastName,desc order", plan.getAccess());
+        assertEquals("country:Ukraine", plan.getFilter());
+        assertNull(plan.getSort());
+        assertEquals(6, plan.getRowsExamined());
+    }
+
+    @Test
+    public void shouldKeepTopOfPageWhenSortingByOtherFields() {
+        var filtering = sorted("zipCode:1..3", "city,desc", new PaginationParams(0, 4));
+
+        var users = userService.getAllUsers(filtering);
+        var plan = userService.explainUsers(filtering);
+
+        assertEquals(List.of(97, 92, 87, 82), users.stream().map(User::getId).toList());
+        assertEquals("id scan", plan.getAccess());
+        assertEquals("city,desc, top 4", plan.getSort());
+        assertEquals(4, plan.getRowsReturned());
+        var cursor = new PageCursor(EpochDays.NONE, 4).encode();
+        assertThrows(InvalidDataException.class, () -> userService.getAllUsers(
+                sorted("zipCode:1..3", "city,desc", new PaginationParams(0, 4, cursor))));
+    }
+
+    private static UserListFiltering where(String filter, PaginationParams pagination) {
+        return where(filter, null, pagination);
+    }
+
+    private static UserListFiltering where(String filter, BirthdayRangeFiltering range, PaginationParams pagination) {
+        return new UserListFiltering(range, pagination, null, UserFilter.parse(filter));
+    }
+
+    private static UserListFiltering sorted(String filter, String sort, PaginationParams pagination) {
+        return new UserListFiltering(null, pagination, null, UserFilter.parse(filter), UserSort.parse(sort));
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.testassignment.service;
 
+import com.example.testassignment.datafilters.AddressFiltering;
 import com.example.testassignment.datafilters.BirthdayRangeFiltering;
+import com.example.testassignment.datafilters.PageCursor;
 import com.example.testassignment.datafilters.PaginationParams;
 import com.example.testassignment.datafilters.UserListFiltering;
 import com.example.testassignment.entity.User;
-import com.example.testassignment.helper.StringToDateConverter;
+import com.example.testassignment.exceptions.InvalidDataException;
+import com.example.testassignment.exceptions.VersionConflictException;
+import com.example.testassignment.helper.EpochDays;
 import com.example.testassignment.payload.UpdateUserPayload;
 import com.example.testassignment.payload.UserPayload;
 import com.example.testassignment.repositories.UserRepository;
@@ -20,6 +24,11 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -77,29 +86,108 @@ public class UserServiceTest {
     @Test
     public void shouldGetAllUsersWithDateRange() {
         var expectedList = generateUserList();
-        when(userRepository.getAll()).thenReturn(expectedList);
+        var from = EpochDays.parse("1990-01-21");
+        var to = EpochDays.parse("1996-12-21");
+        when(userRepository.findByBirthdayRange(from, to))
+                .thenAnswer(invocation -> expectedList.subList(1, 4).stream());
 
-        var users = this.userService.getAllUsers(new UserListFiltering(new BirthdayRangeFiltering(StringToDateConverter.convert("1990-11-21"), null), null));
+        var users = this.userService.getAllUsers(new UserListFiltering(
+                new BirthdayRangeFiltering(from, to), null));
         Assertions.assertEquals(3, users.size());
-        Assertions.assertEquals(expectedList.get(2), users.get(0));
-        Assertions.assertEquals(expectedList.get(3), users.get(1));
-        Assertions.assertEquals(expectedList.get(4), users.get(2));
+        Assertions.assertEquals(expectedList.get(1), users.get(0));
+        Assertions.assertEquals(expectedList.get(2), users.get(1));
+        Assertions.assertEquals(expectedList.get(3), users.get(2));
 
-        users = this.userService.getAllUsers(new UserListFiltering(new BirthdayRangeFiltering(null, StringToDateConverter.convert("1990-11-21")), null));
-        Assertions.assertEquals(2, users.size());
-        Assertions.assertEquals(expectedList.get(0), users.get(0));
-        Assertions.assertEquals(expectedList.get(1), users.get(1));
+        users = this.userService.getAllUsers(new UserListFiltering(
+                new BirthdayRangeFiltering(from, to), new PaginationParams(1, 1)));
+        Assertions.assertEquals(List.of(expectedList.get(2)), users);
+
+        users = this.userService.getAllUsers(new UserListFiltering(
+                new BirthdayRangeFiltering(from, to), new PaginationParams(5, 0)));
+        Assertions.assertTrue(users.isEmpty());
+        verify(userRepository, never()).getAll();
+    }
+
+    @Test
+    public void shouldIgnoreRangeWithoutBounds() {
+        var expectedList = generateUserList();
+        when(userRepository.getAll()).thenReturn(expectedList);
+
+        var users = this.userService.getAllUsers(new UserListFiltering(
+                new BirthdayRangeFiltering((String) null, null), new PaginationParams(0, 0)));
 
+        Assertions.assertEquals(expectedList, users);
+        verify(userRepository, never()).findByBirthdayRange(anyInt(), anyInt());
+    }
+
+
+    @Test
+    public void shouldFilterByAddressWithinDateRange() {
+        var expectedList = generateUserList();
+        var address = new AddressFiltering("Ukraine", null, 1001);
+        var from = EpochDays.parse("1990-01-21");
+        when(userRepository.findByAddress(address, 0))
+                .thenAnswer(invocation -> expectedList.subList(1, 3).stream());
+        when(userRepository.findByAddress(address, from, EpochDays.NONE, EpochDays.NONE, 0))
+                .thenAnswer(invocation -> expectedList.subList(2, 4).stream());
+
+        var users = this.userService.getAllUsers(new UserListFiltering(null, null, address));
+        Assertions.assertEquals(expectedList.subList(1, 3), users);
 
         users = this.userService.getAllUsers(new UserListFiltering(
-                new BirthdayRangeFiltering(StringToDateConverter.convert("1990-01-21"),
-                        StringToDateConverter.convert("1996-12-21")), null));
-        Assertions.assertEquals(3, users.size());
-        Assertions.assertEquals(expectedList.get(1), users.get(0));
-        Assertions.assertEquals(expectedList.get(2), users.get(1));
-        Assertions.assertEquals(expectedList.get(3), users.get(2));
+                new BirthdayRangeFiltering(from, EpochDays.NONE), new PaginationParams(1, 1), address));
+        Assertions.assertEquals(List.of(expectedList.get(3)), users);
+        verify(userRepository, never()).getAll();
+        verify(userRepository, never()).findByBirthdayRange(anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldResumeListingAfterCursor() {
+        var expectedList = generateUserList();
+        when(userRepository.findAfter(2)).thenAnswer(invocation -> expectedList.subList(2, 5).stream());
+
+        var cursor = new PageCursor(EpochDays.NONE, 2).encode();
+        var users = this.userService.getAllUsers(new UserListFiltering(null, new PaginationParams(0, 2, cursor)));
+
+        Assertions.assertEquals(List.of(expectedList.get(2), expectedList.get(3)), users);
+        verify(userRepository, never()).getAll();
+    }
+
+    @Test
+    public void shouldResumeRangeListingAfterCursor() {
+        var expectedList = generateUserList();
+        var from = EpochDays.parse("1980-01-01");
+        var last = expectedList.get(1);
+        when(userRepository.findByBirthdayRange(from, EpochDays.NONE, last.getBirthday(), last.getId()))
+                .thenAnswer(invocation -> expectedList.subList(2, 5).stream());
+
+        var cursor = new PageCursor(last.getBirthday(), last.getId()).encode();
+        var users = this.userService.getAllUsers(new UserListFiltering(
+                new BirthdayRangeFiltering(from, EpochDays.NONE), new PaginationParams(0, 0, cursor)));
+
+        Assertions.assertEquals(expectedList.subList(2, 5), users);
+    }
+
+    @Test
+    public void shouldRejectCursorOfAnotherListing() {
+        var cursor = new PageCursor(EpochDays.NONE, 2).encode();
+        var filtering = new UserListFiltering(
+                new BirthdayRangeFiltering(EpochDays.parse("1980-01-01"), EpochDays.NONE),
+                new PaginationParams(0, 2, cursor));
+
+        Assertions.assertThrows(InvalidDataException.class, () -> this.userService.getAllUsers(filtering));
     }
 
+    @Test
+    public void shouldStreamPageWithoutLoadingAllUsers() {
+        var expectedList = generateUserList();
+        when(userRepository.findAfter(0)).thenAnswer(invocation -> expectedList.stream());
+
+        var users = this.userService.streamUsers(new UserListFiltering(null, new PaginationParams(1, 2)));
+
+        Assertions.assertEquals(expectedList.subList(1, 3), users.toList());
+        verify(userRepository, never()).getAll();
+    }
 
     @Test
     public void shouldGetUserById() {
@@ -146,20 +234,51 @@ public class UserServiceTest {
         this.userService.updateUser(1, new UpdateUserPayload());
 
         // Then
-        verify(userRepository).update(existUser);
+        verify(userRepository).update(existUser, 0L);
+    }
+
+    @Test
+    public void shouldPatchAgainWhenUserChangedConcurrently() {
+        // Given
+        var firstRead = User.builder().id(1).lastName("Last").version(1).build();
+        var secondRead = User.builder().id(1).lastName("Changed").version(2).build();
+        when(userRepository.find(1)).thenReturn(Optional.of(firstRead), Optional.of(secondRead));
+        doThrow(new VersionConflictException("User was changed concurrently"))
+                .when(userRepository).update(any(), eq(1L));
+        var updates = new UpdateUserPayload();
+        updates.setFirstName("First");
+
+        // When
+        this.userService.updateUser(1, updates);
+
+        // Then
+        verify(userRepository).update(User.builder().id(1).firstName("First").lastName("Changed").build(), 2L);
+    }
+
+    @Test
+    public void shouldRejectUpdateOfAnotherVersion() {
+        // Given
+        when(userRepository.find(1)).thenReturn(Optional.of(User.builder().id(1).version(2).build()));
+
+        // When
+        Assertions.assertThrows(VersionConflictException.class,
+                () -> this.userService.updateUser(1, new UpdateUserPayload(), 1L));
+
+        // Then
+        verify(userRepository, never()).update(any(), anyLong());
     }
 
     private List<User> generateUserList() {
         var user1 = new User(1, "", "", "");
-        user1.setBirthday(StringToDateConverter.convert("1970-05-19"));
+        user1.setBirthday(EpochDays.parse("1970-05-19"));
         var user2 = new User(2, "", "", "");
-        user2.setBirthday(StringToDateConverter.convert("1990-10-21"));
+        user2.setBirthday(EpochDays.parse("1990-10-21"));
         var user3 = new User(3, "", "", "");
-        user3.setBirthday(StringToDateConverter.convert("1992-08-11"));
+        user3.setBirthday(EpochDays.parse("1992-08-11"));
         var user4 = new User(4, "", "", "");
-        user4.setBirthday(StringToDateConverter.convert("1996-03-15"));
+        user4.setBirthday(EpochDays.parse("1996-03-15"));
         var user5 = new User(5, "", "", "");
-        user5.setBirthday(StringToDateConverter.convert("2000-06-10"));
+        user5.setBirthday(EpochDays.parse("2000-06-10"));
 
         return List.of(user1, user2, user3, user4, user5);
     }
@@ -0,0 +1,101 @@
+package com.example.testassignment.stats;
+
+import com.example.testassignment.entity.Address;
+import com.example.testassignment.entity.User;
+import com.example.testassignment.helper.EpochDays;
+import com.example.testassignment.repositories.ConcurrentUserRepository;
+import com.example.testassignment.repositories.UserChangeListener;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.annotation.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class UserCountsTest {
+    private final UserCounts counts = new UserCounts(18, 10);
+    private final ConcurrentUserRepository repository = new ConcurrentUserRepository(List.of(counts));
+
+    @Test
+    public void shouldCountUsersByGroup() {
+        repository.create(userAged(20, " ukraine"));
+        repository.create(userAged(27, "Ukraine"));
+        repository.create(userAged(28, "Poland"));
+        repository.create(userAged(45, null));
+        repository.create(new User(0, "First", "Last", "nobirthday@example.com"));
+
+        var result = counts.get();
+
+        Assertions.assertEquals(5, result.getTotal());
+        Assertions.assertEquals(Map.of("ukraine", 2L, "Poland", 1L), result.getByCountry());
+        Assertions.assertEquals(List.of("18-27", "28-37", "38-47"), List.copyOf(result.getByAge().keySet()));
+        Assertions.assertEquals(List.of(2L, 1L, 1L), List.copyOf(result.getByAge().values()));
+        Assertions.assertEquals(4, result.getByBirthYear().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void shouldMoveUsersBetweenGroupsOnUpdateAndDelete() {
+        var user = userAged(20, "Ukraine");
+        var other = userAged(30, "Ukraine");
+        repository.create(user);
+        repository.create(other);
+
+        repository.update(user.toBuilder()
+                .birthday(EpochDays.parse("1950-06-01"))
+                .address(new Address("Poland", "Krakow", "Main", 1, 30001))
+                .build());
+        repository.delete(other);
+
+        var result = counts.get();
+        Assertions.assertEquals(1, result.getTotal());
+        Assertions.assertEquals(Map.of("Poland", 1L), result.getByCountry());
+        Assertions.assertEquals(Map.of(1950, 1L), result.getByBirthYear());
+        Assertions.assertEquals(1L, result.getByAge().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void shouldEndWithOpenBucketForVeryOldBirthdays() {
+        var user = userAged(0, null);
+        user.setBirthday(EpochDays.parse("1850-01-01"));
+        repository.create(user);
+
+        var byAge = counts.get().getByAge();
+
+        var last = List.copyOf(byAge.keySet()).get(byAge.size() - 1);
+        Assertions.assertTrue(last.endsWith("+"), last);
+        Assertions.assertEquals(1L, byAge.get(last));
+    }
+
+    @Test
+    public void shouldNotCountWriteAbortedByAnotherListener() {
+        // listeners in the order Spring injects them
+        var listeners = new ArrayList<UserChangeListener>(List.of(counts, new FailingListener()));
+        AnnotationAwareOrderComparator.sort(listeners);
+        var failing = new ConcurrentUserRepository(listeners);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> failing.create(userAged(20, "Ukraine")));
+
+        Assertions.assertEquals(0, counts.get().getTotal());
+        Assertions.assertEquals(Map.of(), counts.get().getByCountry());
+    }
+
+    private static User userAged(int years, String country) {
+        var user = new User(0, "First", "Last", null);
+        user.setBirthday(EpochDays.minusYears(EpochDays.today(), years));
+        if (country != null) {
+            user.setAddress(new Address(country, "City", "Main", 1, 1000));
+        }
+        return user;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    private static class FailingListener implements UserChangeListener {
+        @Override
+        public void onCreate(User user) {
+            throw new IllegalStateException("Can't append");
+        }
+    }
+}